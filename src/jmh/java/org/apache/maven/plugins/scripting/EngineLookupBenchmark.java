@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptEngineManager;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Engine lookup through a new {@link ScriptEngineManager}, as each execution did, and through the factory index.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class EngineLookupBenchmark {
+    @Benchmark
+    public ScriptEngineFactory managerByName() {
+        return new ScriptEngineManager().getEngineByName("java").getFactory();
+    }
+
+    @Benchmark
+    public ScriptEngineFactory managerByExtension() {
+        return new ScriptEngineManager().getEngineByExtension("java").getFactory();
+    }
+
+    @Benchmark
+    public ScriptEngineFactory indexByName() {
+        return ScriptEngineFactoryIndex.of(Thread.currentThread().getContextClassLoader())
+                .getByName("java");
+    }
+
+    @Benchmark
+    public ScriptEngineFactory indexByExtension() {
+        return ScriptEngineFactoryIndex.of(Thread.currentThread().getContextClassLoader())
+                .getByExtension("java");
+    }
+}
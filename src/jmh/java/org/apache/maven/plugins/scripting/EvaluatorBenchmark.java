@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.Bindings;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * End to end evaluation of a java script as an execution does it: engine lookup, script loading and evaluation.
+ * The compiled script cache is warm, except for {@link #stringUncached()} which compiles on each invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EvaluatorBenchmark {
+    private static final String SCRIPT = "$bindings.put(\"sum\", IntStream.range(0, 10).sum());";
+
+    private final CompiledScriptCache compiledScripts = new CompiledScriptCache(16, false);
+
+    private final SystemStreamLog log = new SystemStreamLog();
+
+    private File scriptFile;
+
+    private StringScriptEvaluator string;
+
+    private FileScriptEvaluator file;
+
+    private ResourceScriptEvaluator resource;
+
+    @Setup
+    public void setup() throws IOException {
+        scriptFile = File.createTempFile("EvaluatorBenchmark", ".java");
+        Files.write(scriptFile.toPath(), SCRIPT.getBytes(StandardCharsets.UTF_8));
+
+        string = new StringScriptEvaluator("java", SCRIPT);
+        file = new FileScriptEvaluator(null, scriptFile, StandardCharsets.UTF_8);
+        resource = new ResourceScriptEvaluator(null, "benchmark/script.java", StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        scriptFile.delete();
+    }
+
+    @Benchmark
+    public Object string() throws ScriptException, UnsupportedScriptEngineException {
+        return eval(string, compiledScripts);
+    }
+
+    @Benchmark
+    public Object file() throws ScriptException, UnsupportedScriptEngineException {
+        return eval(file, compiledScripts);
+    }
+
+    @Benchmark
+    public Object resource() throws ScriptException, UnsupportedScriptEngineException {
+        return eval(resource, compiledScripts);
+    }
+
+    @Benchmark
+    public Object stringUncached() throws ScriptException, UnsupportedScriptEngineException {
+        return eval(string, null);
+    }
+
+    private Object eval(AbstractScriptEvaluator evaluator, CompiledScriptCache cache)
+            throws ScriptException, UnsupportedScriptEngineException {
+        Bindings bindings = new SimpleBindings();
+        evaluator.eval(bindings, new ScriptEngines(log, null, null, false), cache);
+        return bindings.get("sum");
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Java engine compilation and evaluation costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JavaEngineBenchmark {
+    static final String SCRIPT = "import java.util.concurrent.atomic.AtomicInteger;\n"
+            + "\n"
+            + "final AtomicInteger sum = new AtomicInteger();\n"
+            + "IntStream.range(0, 10).forEach(sum::addAndGet);\n"
+            + "$bindings.put(\"sum\", sum.get());\n";
+
+    static final String FUNCTION_SCRIPT = "int sum(int count) {\n"
+            + "    return IntStream.range(0, count).sum();\n"
+            + "}\n";
+
+    private final AtomicLong counter = new AtomicLong();
+
+    private JavaEngine engine;
+
+    private JavaEngine cachingEngine;
+
+    private Path cache;
+
+    private CompiledScript compiled;
+
+    private CompiledScript functions;
+
+    @Setup
+    public void setup() throws Exception {
+        engine = newEngine();
+        compiled = engine.compile(SCRIPT);
+        functions = engine.compile(FUNCTION_SCRIPT);
+
+        cache = Files.createTempDirectory("JavaEngineBenchmark");
+        cachingEngine = newEngine();
+        cachingEngine.setCacheDirectory(cache);
+        close(cachingEngine.compile(SCRIPT));
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        close(compiled);
+        close(functions);
+        try (Stream<Path> files = Files.walk(cache)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /**
+     * First compilation of the JVM: compiler lookup, file manager and classpath indexing, javac itself.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Fork(5)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public Object compileCold() throws Exception {
+        return close(newEngine().compile(SCRIPT));
+    }
+
+    /**
+     * Compilation of a new script with a warm compiler service.
+     */
+    @Benchmark
+    public Object compileWarm() throws Exception {
+        return close(engine.compile(SCRIPT + "// " + counter.incrementAndGet()));
+    }
+
+    /**
+     * Compilation of a script already in the persistent cache.
+     */
+    @Benchmark
+    public Object compileFromDiskCache() throws Exception {
+        return close(cachingEngine.compile(SCRIPT));
+    }
+
+    /**
+     * Evaluation of an already compiled script.
+     */
+    @Benchmark
+    public Object evalCompiled() throws ScriptException {
+        return compiled.eval(engine.getContext());
+    }
+
+    /**
+     * Call of a method declared by a compiled script, through {@link javax.script.Invocable}.
+     */
+    @Benchmark
+    public Object invokeFunction() throws Exception {
+        return ((Invocable) functions).invokeFunction("sum", 10);
+    }
+
+    /**
+     * Wrapping of the script in its generated class.
+     */
+    @Benchmark
+    public String toSource() {
+        return JavaEngine.toSource("benchmark", "Script", SCRIPT).getCode();
+    }
+
+    private static JavaEngine newEngine() {
+        JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+        return engine;
+    }
+
+    private static Object close(CompiledScript script) throws Exception {
+        if (script instanceof AutoCloseable) {
+            ((AutoCloseable) script).close();
+        }
+        return script;
+    }
+}
@@ -19,13 +19,15 @@
 package org.apache.maven.plugins.scripting;
 
 import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 
-import org.apache.maven.plugin.logging.Log;
-import org.apache.maven.plugins.scripting.engine.ContextAwareEngine;
+import org.apache.maven.plugins.scripting.engine.PhaseTimings;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
 
 /**
  * Evaluates a script in the appropriate context and return its possibly null result.
@@ -33,27 +35,130 @@ import org.apache.maven.plugins.scripting.engine.ContextAwareEngine;
  * @author Rusi Popov
  */
 abstract class AbstractScriptEvaluator {
+    private final PhaseTimings timings = new PhaseTimings();
+
+    private ScriptBudget budget = ScriptBudget.UNLIMITED;
+
+    private volatile ScriptBudget.Usage usage;
 
     /**
      * @param bindings not null bindings to provide to the script to execute
-     * @param log engine logger if context aware
+     * @param engines provides the engine of the execution for the script language
+     * @param compiledScripts possibly null cache of compiled scripts, used when it accepts the engine
      * @return the possibly null result the script produced
-     * @throws ScriptException  if an error occurs in script
+     * @throws ScriptException  if an error occurs in script, or it was interrupted when reaching its time budget
      * @throws UnsupportedScriptEngineException when the engine is not configured correctly
      */
-    protected final Object eval(Bindings bindings, Log log) throws ScriptException, UnsupportedScriptEngineException {
-        ScriptEngineManager manager = new ScriptEngineManager();
-        ScriptEngine engine = getEngine(manager);
-        if (engine instanceof ContextAwareEngine) {
-            ((ContextAwareEngine) engine).setLog(log);
+    protected final Object eval(Bindings bindings, ScriptEngines engines, CompiledScriptCache compiledScripts)
+            throws ScriptException, UnsupportedScriptEngineException {
+        ScriptBudget.Meter meter = budget.start();
+        try {
+            return measuredEval(bindings, engines, compiledScripts, meter);
+        } catch (ScriptException | RuntimeException e) {
+            if (meter.isTimedOut()) {
+                ScriptException timeout = new ScriptException(
+                        "Script interrupted after reaching its wall-clock budget of " + meter.getWallTimeMillis()
+                                + " ms");
+                timeout.initCause(e);
+                throw timeout;
+            }
+            throw e;
+        } finally {
+            usage = meter.stop();
         }
-        ScriptContext context = engine.getContext();
+    }
+
+    private Object measuredEval(
+            Bindings bindings, ScriptEngines engines, CompiledScriptCache compiledScripts, ScriptBudget.Meter meter)
+            throws ScriptException, UnsupportedScriptEngineException {
+        final long start = System.nanoTime();
+        timings.bind();
+        try {
+            ScriptEngineFactoryIndex index =
+                    ScriptEngineFactoryIndex.of(Thread.currentThread().getContextClassLoader());
+            ScriptEngine engine = engines.get(getEngineFactory(index));
+            ScriptContext context = engines.createContext(engine, bindings);
+            PhaseTimings.record(PhaseTimings.LOOKUP, start);
+
+            long phase = System.nanoTime();
+            CompiledScript compiled = getCompiledScript(engine);
+            if (compiled != null) {
+                PhaseTimings.record(PhaseTimings.LOAD, phase);
+            } else if (compiledScripts != null && compiledScripts.accepts(engine)) {
+                ScriptSource source = getSource();
+                PhaseTimings.record(PhaseTimings.LOAD, phase);
+
+                phase = System.nanoTime();
+                compiled = compiledScripts.compile(engine, source, engines.getLog());
+                PhaseTimings.record(PhaseTimings.COMPILE, phase);
+            } else if (budget.hasTimeout() && engine instanceof Compilable) {
+                // compile apart so the timeout only interrupts the script body
+                ScriptSource source = getSource();
+                PhaseTimings.record(PhaseTimings.LOAD, phase);
+
+                phase = System.nanoTime();
+                compiled = ((Compilable) engine).compile(source.getText());
+                PhaseTimings.record(PhaseTimings.COMPILE, phase);
+            }
+            if (compiled != null) {
+                phase = System.nanoTime();
+                meter.arm();
+                try {
+                    return compiled.eval(context);
+                } finally {
+                    meter.disarm();
+                    PhaseTimings.record(PhaseTimings.EVAL, phase);
+                }
+            }
+            meter.arm();
+            try {
+                return eval(engine, context);
+            } finally {
+                meter.disarm();
+                PhaseTimings.record(PhaseTimings.EVAL, phase);
+            }
+        } finally {
+            PhaseTimings.record(PhaseTimings.TOTAL, start);
+            timings.unbind();
+        }
+    }
+
+    /**
+     * @return the time spent in each phase by the evaluations of this script
+     */
+    final PhaseTimings getTimings() {
+        return timings;
+    }
 
-        context.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
+    /**
+     * @param budget the limits of the evaluations of this script
+     */
+    final void setBudget(ScriptBudget budget) {
+        this.budget = budget;
+    }
 
-        return eval(engine, context);
+    /**
+     * @return what the last evaluation of this script consumed, {@code null} when it was not evaluated
+     */
+    final ScriptBudget.Usage getUsage() {
+        return usage;
     }
 
+    /**
+     * @param engine the engine of the script
+     * @return the script compiled when its artifact was built, {@code null} to compile or evaluate its source
+     * @throws ScriptException if the compiled script can't be loaded
+     */
+    protected CompiledScript getCompiledScript(ScriptEngine engine) throws ScriptException {
+        return null;
+    }
+
+    /**
+     * @return the non-null script source with its digest, used to compile it
+     * @throws ScriptException if the script can't be read
+     */
+    protected abstract ScriptSource getSource() throws ScriptException;
+
     /**
      * AbstractScriptEvaluator the script.
      *
@@ -65,9 +170,10 @@ abstract class AbstractScriptEvaluator {
     protected abstract Object eval(ScriptEngine engine, ScriptContext context) throws ScriptException;
 
     /**
-     * @param manager not null
-     * @return non-null engine to execute the script
+     * @param index not null
+     * @return non-null factory of the engine to execute the script
      * @throws UnsupportedScriptEngineException when no engine could be identified
      */
-    protected abstract ScriptEngine getEngine(ScriptEngineManager manager) throws UnsupportedScriptEngineException;
+    protected abstract ScriptEngineFactory getEngineFactory(ScriptEngineFactoryIndex index)
+            throws UnsupportedScriptEngineException;
 }
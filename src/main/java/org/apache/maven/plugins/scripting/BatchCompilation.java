@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Compiles the java scripts configured for this plugin in a set of projects with a single javac task, before the
+ * first execution evaluates its scripts. The compiled scripts are added to the {@link CompiledScriptCache} where the
+ * executions find them. Each set of projects is compiled once per session and plugin realm.
+ */
+final class BatchCompilation {
+    private final Set<List<Object>> compiled = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param session the current session
+     * @return the batch compilations of the session
+     */
+    static BatchCompilation of(MavenSession session) {
+        return SessionScope.get(session, BatchCompilation.class, BatchCompilation.class, BatchCompilation::new);
+    }
+
+    /**
+     * Compiles the java scripts of the projects, unless it was already done in this session. A failure is not
+     * reported: the scripts are then compiled one by one when evaluated, with their own error.
+     *
+     * @param id identifies the set of projects, like a project id or <code>reactor</code>
+     * @param projects the projects to read the scripts from
+     * @param pluginKey the <code>groupId:artifactId</code> of this plugin
+     * @param engines the engines of the execution
+     * @param compiledScripts the cache to add the compiled scripts to
+     * @param charset the encoding of the script files and resources
+     * @param resources the script resources of the session
+     */
+    void compile(
+            String id,
+            List<MavenProject> projects,
+            String pluginKey,
+            ScriptEngines engines,
+            CompiledScriptCache compiledScripts,
+            Charset charset,
+            ScriptResources resources) {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        if (!compiled.add(Arrays.asList(id, loader))) {
+            return;
+        }
+
+        ScriptBatch batch = new ScriptBatch(
+                ScriptEngineFactoryIndex.of(loader), compiledScripts, resources, false, engines.getLog());
+        for (MavenProject project : projects) {
+            for (Script script : ConfiguredScripts.of(project, pluginKey)) {
+                batch.add(project, script, engines, charset);
+            }
+        }
+        batch.compile(id, 2);
+    }
+}
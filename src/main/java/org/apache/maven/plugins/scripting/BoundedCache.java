@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Least recently used cache bounded by its number of entries and by the memory available, the values being softly
+ * referenced so the garbage collector reclaims them before the JVM runs out of memory.
+ * Held by a static field, it lives as long as the plugin realm: across all the builds of a Maven daemon which keeps
+ * the realm, and not beyond since a new realm comes with new classes.
+ * Evicted values are only dereferenced, never closed: another thread can still be using them, the garbage collector
+ * reclaims them once it is done.
+ *
+ * @param <K> the key type, which must identify everything the value depends on
+ * @param <V> the value type
+ */
+final class BoundedCache<K, V> {
+    private final Map<K, SoftReference<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private int maxSize;
+
+    /**
+     * @param maxSize the maximum number of entries, strictly positive
+     */
+    BoundedCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @param maxSize the new maximum number of entries, strictly positive, the least recently used entries are
+     *     evicted if there are more
+     */
+    synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        trim();
+    }
+
+    /**
+     * @param key the key
+     * @return the value or {@code null} if it is not cached or was reclaimed
+     */
+    synchronized V get(K key) {
+        SoftReference<V> reference = entries.get(key);
+        if (reference == null) {
+            return null;
+        }
+        V value = reference.get();
+        if (value == null) {
+            entries.remove(key);
+        }
+        return value;
+    }
+
+    /**
+     * @param key the key
+     * @param value the value to cache if there is none yet
+     * @return the value already cached or {@code null} if the given one was added
+     */
+    synchronized V putIfAbsent(K key, V value) {
+        V existing = get(key);
+        if (existing == null) {
+            entries.put(key, new SoftReference<>(value));
+            trim();
+        }
+        return existing;
+    }
+
+    /**
+     * @param key the key
+     * @param factory computes the value when it is not cached, outside of the lock so it can be slow
+     * @return the cached value, the first computed one if several threads raced
+     */
+    V computeIfAbsent(K key, Function<K, V> factory) {
+        V value = get(key);
+        if (value == null) {
+            V created = factory.apply(key);
+            V existing = putIfAbsent(key, created);
+            value = existing != null ? existing : created;
+        }
+        return value;
+    }
+
+    /**
+     * @param filter selects the keys of the entries to remove
+     */
+    synchronized void removeKeys(Predicate<? super K> filter) {
+        entries.keySet().removeIf(filter);
+    }
+
+    private void trim() {
+        Iterator<SoftReference<V>> eldest = entries.values().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+
+import org.apache.maven.plugins.scripting.engine.JavaEngine;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+
+/**
+ * Evaluates a java script compiled by the <code>precompile</code> goal, loaded from the plugin dependencies.
+ * The script is instantiated directly, without any compilation.
+ *
+ * @since 3.1.1
+ */
+public class ClassScriptEvaluator extends AbstractScriptEvaluator {
+
+    /**
+     * Not null binary name of the compiled script class.
+     */
+    private final String className;
+
+    /**
+     * @param className the binary name of the compiled script class
+     * @throws IllegalArgumentException if className is null or empty
+     */
+    public ClassScriptEvaluator(String className) {
+        if (className == null || className.trim().isEmpty()) {
+            throw new IllegalArgumentException("Expected a non-empty script class provided");
+        }
+        this.className = className.trim();
+    }
+
+    /**
+     * @param index the script engine factory index
+     * @throws UnsupportedScriptEngineException if the java engine is not available
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngineFactory(ScriptEngineFactoryIndex)
+     */
+    protected ScriptEngineFactory getEngineFactory(ScriptEngineFactoryIndex index)
+            throws UnsupportedScriptEngineException {
+        ScriptEngineFactory result = index.getByName("java");
+
+        if (result == null) {
+            throw new UnsupportedScriptEngineException("No java engine found for the script class " + className);
+        }
+        return result;
+    }
+
+    /**
+     * @param engine the java engine
+     * @return a new instance of the script class
+     * @throws ScriptException if the class can't be loaded or the engine is not the java one
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getCompiledScript(javax.script.ScriptEngine)
+     */
+    protected CompiledScript getCompiledScript(ScriptEngine engine) throws ScriptException {
+        if (!(engine instanceof JavaEngine)) {
+            throw new ScriptException("The script class " + className + " needs the java engine of this plugin");
+        }
+        return ((JavaEngine) engine).loadCompiledScript(className);
+    }
+
+    /**
+     * @return the class name, the script content being identified by the plugin dependencies
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getSource()
+     */
+    protected ScriptSource getSource() {
+        return ScriptSource.of(className);
+    }
+
+    /**
+     * @param loader the class loader the script is evaluated with
+     * @return the jar or directory the script class is loaded from, whose content identifies the script, or
+     *     {@code null} if it is not a file
+     * @throws ScriptException if the class can't be loaded
+     */
+    File getLocation(ClassLoader loader) throws ScriptException {
+        try {
+            CodeSource codeSource = loader.loadClass(className)
+                    .getProtectionDomain()
+                    .getCodeSource();
+            if (codeSource == null || codeSource.getLocation() == null) {
+                return null;
+            }
+            return new File(codeSource.getLocation().toURI());
+        } catch (ClassNotFoundException | LinkageError e) {
+            ScriptException error = new ScriptException("Can't load the precompiled script " + className);
+            error.initCause(e);
+            throw error;
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null; // not a file
+        }
+    }
+
+    /**
+     * @param engine the script engine
+     * @param context the script context
+     * @throws ScriptException if an error occurs in script
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#eval(javax.script.ScriptEngine, javax.script.ScriptContext)
+     */
+    protected Object eval(ScriptEngine engine, ScriptContext context) throws ScriptException {
+        return getCompiledScript(engine).eval(context);
+    }
+}
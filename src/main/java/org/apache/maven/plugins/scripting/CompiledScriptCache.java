@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.scripting.engine.ContextAwareEngine;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+
+/**
+ * Least recently used cache of the scripts compiled by {@link Compilable} engines, shared by all the executions of
+ * the builds run by the plugin realm so a script configured for many modules, or built again by a Maven daemon, is
+ * only compiled once. Scripts are identified by their digest, engine, weakly referenced class loader and compilation
+ * classpath, and softly referenced so they don't hold memory the build needs.
+ * Evicted scripts are not closed since a module of a parallel build can still be evaluating them, with classes left to
+ * load: they are reclaimed by the garbage collector with their class loader once no longer used. Only the scripts
+ * which were never handed out, like the loser of a compilation race, are closed.
+ * In a parallel build, the scripts of engines which do not declare a {@code THREADING} parameter are not shared
+ * since several modules could evaluate them at the same time.
+ */
+final class CompiledScriptCache {
+    /**
+     * The scripts of the realm, lives as long as it.
+     */
+    private static final BoundedCache<List<Object>, CompiledScript> SHARED = new BoundedCache<>(64);
+
+    private final BoundedCache<List<Object>, CompiledScript> scripts;
+
+    private final boolean concurrent;
+
+    private final String classpath;
+
+    /**
+     * @param maxSize the maximum number of cached scripts, strictly positive
+     * @param concurrent whether cached scripts can be evaluated by concurrent threads
+     */
+    CompiledScriptCache(final int maxSize, final boolean concurrent) {
+        this(new BoundedCache<>(maxSize), concurrent, "");
+    }
+
+    private CompiledScriptCache(
+            final BoundedCache<List<Object>, CompiledScript> scripts,
+            final boolean concurrent,
+            final String classpath) {
+        this.scripts = scripts;
+        this.concurrent = concurrent;
+        this.classpath = classpath;
+    }
+
+    /**
+     * @param session the current session
+     * @param maxSize the maximum number of cached scripts, the last execution sets it
+     * @param classpath identifies the classpath scripts are compiled against, see {@link ScriptClasspath#getKey()}
+     * @return the cache of the realm, for the executions of the session compiling against this classpath
+     */
+    static CompiledScriptCache of(MavenSession session, int maxSize, String classpath) {
+        SHARED.setMaxSize(maxSize);
+        return of(session, classpath);
+    }
+
+    /**
+     * @param session the current session
+     * @param classpath identifies the classpath scripts are compiled against, see {@link ScriptClasspath#getKey()}
+     * @return the cache of the realm with its current size, for the executions of the session compiling against this
+     *     classpath
+     */
+    static CompiledScriptCache of(MavenSession session, String classpath) {
+        return new CompiledScriptCache(SHARED, session.isParallel(), classpath);
+    }
+
+    /**
+     * @param engine an engine
+     * @return whether the scripts of this engine can be cached
+     */
+    boolean accepts(ScriptEngine engine) {
+        return engine instanceof Compilable
+                && (!concurrent || engine.getFactory().getParameter("THREADING") != null);
+    }
+
+    /**
+     * @param engine a compilable engine
+     * @param source the script source
+     * @param log where to report cache activity
+     * @return the compiled script, reused if the same engine type already compiled the same source
+     * @throws ScriptException if the script can't be compiled
+     */
+    CompiledScript compile(ScriptEngine engine, ScriptSource source, Log log) throws ScriptException {
+        List<Object> key = key(engine, source.getDigest());
+
+        CompiledScript compiled = scripts.get(key);
+        if (compiled != null) {
+            log.debug("Reusing compiled script " + key.get(0));
+            return compiled;
+        }
+
+        // compile outside the lock to not serialize parallel modules, first one to finish wins
+        CompiledScript created = engine instanceof ContextAwareEngine
+                ? ((ContextAwareEngine) engine).compile(source)
+                : ((Compilable) engine).compile(source.getText());
+        compiled = scripts.putIfAbsent(key, created);
+        if (compiled != null) {
+            // lost the race, this script was never handed out
+            close(created, log);
+            return compiled;
+        }
+        return created;
+    }
+
+    /**
+     * @param engine a compilable engine
+     * @param digest the {@link ScriptSource#getDigest() digest} of a script
+     * @return whether the script compiled by this engine type is cached
+     */
+    boolean contains(ScriptEngine engine, String digest) {
+        return scripts.get(key(engine, digest)) != null;
+    }
+
+    /**
+     * Adds scripts compiled in advance, scripts already cached are kept.
+     *
+     * @param engine the engine which compiled the scripts
+     * @param compiled the compiled scripts indexed by {@link ScriptSource#getDigest() digest}
+     * @param log where to report cache activity
+     */
+    void putAll(ScriptEngine engine, Map<String, CompiledScript> compiled, Log log) {
+        for (Map.Entry<String, CompiledScript> script : compiled.entrySet()) {
+            if (scripts.putIfAbsent(key(engine, script.getKey()), script.getValue()) != null) {
+                close(script.getValue(), log);
+            }
+        }
+    }
+
+    private List<Object> key(ScriptEngine engine, String digest) {
+        ScriptEngineFactory factory = engine.getFactory();
+        String name = factory.getClass().getName() + ':' + factory.getEngineName() + ':' + digest;
+        // compiled scripts link against the loader they were compiled with: the plugin realm or a child of it
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        return Arrays.asList(name, new WeakIdentityKey<>(loader), classpath);
+    }
+
+    /**
+     * Drops the scripts compiled with a class loader being closed, they can't load classes anymore.
+     *
+     * @param loader the class loader
+     */
+    static void forget(ClassLoader loader) {
+        SHARED.removeKeys(key -> {
+            Object compiledWith = ((WeakIdentityKey<?>) key.get(1)).get();
+            return compiledWith == loader || compiledWith == null;
+        });
+    }
+
+    private static void close(CompiledScript script, Log log) {
+        if (script instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) script).close();
+            } catch (Exception e) {
+                log.debug(e);
+            }
+        }
+    }
+}
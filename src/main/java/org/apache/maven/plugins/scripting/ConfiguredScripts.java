@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.model.Plugin;
+import org.apache.maven.model.PluginExecution;
+import org.apache.maven.project.MavenProject;
+import org.codehaus.plexus.util.xml.Xpp3Dom;
+
+/**
+ * Reads the scripts configured for this plugin in the model of a project, without evaluating the executions, so
+ * they can be prepared before the executions run. Values using expressions are skipped since they are only known
+ * once the execution is configured.
+ */
+final class ConfiguredScripts {
+    private ConfiguredScripts() {
+        // utility
+    }
+
+    /**
+     * @param project the project to read
+     * @param pluginKey the <code>groupId:artifactId</code> of this plugin
+     * @return the scripts configured at plugin and execution level, possibly with duplicates
+     */
+    static List<Script> of(MavenProject project, String pluginKey) {
+        List<Script> scripts = new ArrayList<>();
+        for (Configuration configuration : configurations(project, pluginKey)) {
+            scripts.addAll(configuration.getScripts());
+        }
+        return scripts;
+    }
+
+    /**
+     * @param project the project to read
+     * @param pluginKey the <code>groupId:artifactId</code> of this plugin
+     * @return the configurations of the plugin and of its executions, in this order
+     */
+    static List<Configuration> configurations(MavenProject project, String pluginKey) {
+        List<Configuration> configurations = new ArrayList<>();
+        for (Plugin plugin : project.getBuildPlugins()) {
+            if (!pluginKey.equals(plugin.getKey())) {
+                continue;
+            }
+            add(configurations, project, plugin.getConfiguration());
+            for (PluginExecution execution : plugin.getExecutions()) {
+                add(configurations, project, execution.getConfiguration());
+            }
+        }
+        return configurations;
+    }
+
+    /**
+     * @param project the project to read
+     * @param pluginKey the <code>groupId:artifactId</code> of this plugin
+     * @param executionId the execution identifier
+     * @return identifies the execution and its configuration in the build of the project, the same in the modules
+     *     inheriting it unchanged, {@code null} if the build does not run it. The command line execution is always run.
+     */
+    static String executionKey(MavenProject project, String pluginKey, String executionId) {
+        boolean runs = executionId.startsWith("default-cli");
+        Object configuration = null;
+        for (Plugin plugin : project.getBuildPlugins()) {
+            if (pluginKey.equals(plugin.getKey())) {
+                PluginExecution execution = plugin.getExecutionsAsMap().get(executionId);
+                runs |= execution != null;
+                // the plugin configuration is already merged in the one of its executions
+                configuration = execution != null ? execution.getConfiguration() : plugin.getConfiguration();
+            }
+        }
+        if (!runs) {
+            return null;
+        }
+        return new Fingerprint()
+                .add(executionId)
+                .add(configuration != null ? configuration.toString() : null)
+                .toHex();
+    }
+
+    private static void add(List<Configuration> configurations, MavenProject project, Object configuration) {
+        if (!(configuration instanceof Xpp3Dom)) {
+            return;
+        }
+        Xpp3Dom dom = (Xpp3Dom) configuration;
+        Configuration configured = new Configuration(value(dom, "encoding"));
+        addScript(configured.scripts, project, dom);
+        Xpp3Dom list = dom.getChild("scripts");
+        if (list != null) {
+            for (Xpp3Dom script : list.getChildren()) {
+                addScript(configured.scripts, project, script);
+            }
+        }
+        configurations.add(configured);
+    }
+
+    private static void addScript(List<Script> scripts, MavenProject project, Xpp3Dom dom) {
+        String engineName = value(dom, "engineName");
+        String script = value(dom, "script");
+        String scriptFile = value(dom, "scriptFile");
+        String scriptResource = value(dom, "scriptResource");
+        if (script == null && scriptFile == null && scriptResource == null) {
+            return;
+        }
+        File file = null;
+        if (scriptFile != null) {
+            file = new File(scriptFile);
+            if (!file.isAbsolute()) {
+                file = new File(project.getBasedir(), scriptFile);
+            }
+        }
+        scripts.add(new Script(engineName, script, file, scriptResource, null));
+    }
+
+    /**
+     * @return the trimmed value of the child, {@code null} if missing or using an expression
+     */
+    private static String value(Xpp3Dom dom, String name) {
+        Xpp3Dom child = dom.getChild(name);
+        if (child == null || child.getValue() == null || child.getValue().contains("${")) {
+            return null;
+        }
+        return name.equals("script") ? child.getValue() : child.getValue().trim();
+    }
+
+    /**
+     * The scripts of a configuration, with the parameters reading them when they are set.
+     */
+    static final class Configuration {
+        private final List<Script> scripts = new ArrayList<>();
+
+        private final String encoding;
+
+        private Configuration(String encoding) {
+            this.encoding = encoding;
+        }
+
+        /**
+         * @return the configured scripts
+         */
+        List<Script> getScripts() {
+            return scripts;
+        }
+
+        /**
+         * @return the configured <code>encoding</code>, {@code null} if not set
+         */
+        String getEncoding() {
+            return encoding;
+        }
+    }
+}
@@ -18,26 +18,45 @@
  */
 package org.apache.maven.plugins.scripting;
 
-import javax.script.Bindings;
+import javax.inject.Inject;
 import javax.script.ScriptException;
-import javax.script.SimpleBindings;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.BuildFailure;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.scripting.engine.PhaseTimings;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionResult;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
 
 /**
- * Evaluate the specified script or scriptFile.
+ * Evaluate the specified script or scriptFile, then the configured list of scripts.
  *
  * @author Robert Scholte
  * @since 3.0.0
  */
-@Mojo(name = "eval")
+@Mojo(name = "eval", threadSafe = true)
 public class EvalMojo extends AbstractMojo {
     @Parameter
     private String engineName;
@@ -60,45 +79,697 @@ public class EvalMojo extends AbstractMojo {
     @Parameter
     String scriptResource;
 
+    /**
+     * Binary name of a java script compiled by the <code>precompile</code> goal, as an alternative to
+     * &lt;script&gt;. The artifact containing it must be a dependency of the plugin, the script is then evaluated
+     * without being compiled. A <code>scriptResource</code> which was precompiled is evaluated the same way.
+     *
+     * @since 3.1.1
+     */
+    @Parameter
+    private String scriptClass;
+
+    /**
+     * Encoding of the script files and resources, the platform encoding when not set.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.encoding", defaultValue = "${project.build.sourceEncoding}")
+    private String encoding;
+
+    /**
+     * Scripts to evaluate in sequence, after the script configured directly on the execution if any.
+     * Each script is configured with the same elements as the execution: <code>engineName</code>,
+     * <code>script</code>, <code>scriptFile</code>, <code>scriptResource</code> or <code>scriptClass</code>.
+     * The scripts of a same language share one engine instance. The result of a script is bound as
+     * <code>result</code> for the next one, and under its <code>id</code> for all the following ones when set.
+     *
+     * @since 3.1.1
+     */
+    @Parameter
+    private List<Script> scripts;
+
+    /**
+     * Evaluate the scripts of the execution concurrently, each one with its own bindings. Only use it for scripts
+     * which do not depend on each other since results are then not bound for the following scripts.
+     * Engines which do not declare a <code>THREADING</code> parameter are not shared between scripts.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.parallel", defaultValue = "false")
+    private boolean parallel;
+
+    /**
+     * Maximum number of scripts evaluated at the same time in parallel mode, zero or less meaning the number of
+     * available processors. Virtual threads are used when the JVM supports them.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * Directory where engines supporting it, like the java one, persist compiled scripts so unchanged scripts
+     * are not recompiled by the next build. Point it to a shared location, for example under the local
+     * repository, to reuse compiled scripts across modules.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.cacheDirectory", defaultValue = "${project.build.directory}/scripting-cache")
+    private File cacheDirectory;
+
+    /**
+     * Maximum number of scripts compiled by {@link javax.script.Compilable} engines kept in memory, so a script
+     * shared by many modules is compiled once and only evaluated by each of them. The cache lives as long as the
+     * plugin class realm, so a Maven daemon also reuses it for the next builds. The last execution sets the size,
+     * scripts are also released when the JVM runs short of memory. Zero or less disables the cache.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.compiledScriptCacheSize", defaultValue = "64")
+    private int compiledScriptCacheSize;
+
+    /**
+     * Plugin or project dependencies java scripts can use, as <code>groupId:artifactId</code> where <code>*</code>
+     * matches any group or artifact. Java scripts are compiled against the Maven API and this plugin only, listing
+     * the dependencies they need keeps their compilation fast. Only the matching artifacts are added, not their own
+     * dependencies, and project dependencies are only resolved when some are selected. The jars of the Maven
+     * distribution running the build are selected the same way, <code>org.apache.maven:*</code> selects the Maven
+     * core jars for instance.
+     *
+     * @since 3.1.1
+     */
+    @Parameter
+    private List<String> classpathDependencies;
+
+    /**
+     * Compile the java scripts configured for this plugin together, with a single javac invocation, before the first
+     * of them is evaluated: <code>module</code> compiles the scripts of all the executions of the module,
+     * <code>reactor</code> the ones of all the modules of the build and <code>none</code> compiles each script when
+     * it is evaluated. Scripts compiled in advance are kept in the compiled script cache which must be enabled,
+     * see <code>compiledScriptCacheSize</code>. Scripts configured with expressions are not compiled in advance.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.batchCompilation", defaultValue = "none")
+    private String batchCompilation;
+
+    /**
+     * Files or directories the scripts read. When <code>outputs</code> are declared, the execution is skipped if
+     * the scripts, their engines and the content of these inputs did not change since its last successful run and
+     * all the outputs exist.
+     *
+     * @since 3.1.1
+     */
+    @Parameter
+    private List<File> inputs;
+
+    /**
+     * Files or directories the scripts produce, declaring them enables the up to date check of the execution,
+     * see <code>inputs</code>.
+     *
+     * @since 3.1.1
+     */
+    @Parameter
+    private List<File> outputs;
+
+    /**
+     * Where the fingerprints of the executions checked for being up to date are stored.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(defaultValue = "${project.build.directory}/scripting-fingerprints", readonly = true)
+    private File fingerprintDirectory;
+
+    /**
+     * Write the time spent in each phase of the script evaluations (engine lookup, script loading, compilation,
+     * evaluation) as JSON, to find the slowest scripts and modules. The report of the execution is written in
+     * <code>${project.build.directory}/scripting-timings/&lt;execution id&gt;.json</code> and, once all the projects
+     * are built, the one of the whole reactor in <code>scripting-timings.json</code> of the build directory of the top
+     * level project.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.timings", defaultValue = "false")
+    private boolean timings;
+
+    /**
+     * Where the timings of the executions are written.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(defaultValue = "${project.build.directory}/scripting-timings", readonly = true)
+    private File timingsDirectory;
+
+    /**
+     * Maximum wall-clock time of each script, in milliseconds. A script still running when it is reached is
+     * interrupted, and fails unless it ignores the interruption. Zero or less means no limit.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.timeout", defaultValue = "0")
+    private long timeout;
+
+    /**
+     * Maximum CPU time of each script, in milliseconds, measured on the thread evaluating it. Zero or less means no
+     * limit.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.cpuTimeBudget", defaultValue = "0")
+    private long cpuTimeBudget;
+
+    /**
+     * Maximum memory allocated by each script, in megabytes, measured on the thread evaluating it. Zero or less means
+     * no limit.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.allocationBudget", defaultValue = "0")
+    private long allocationBudget;
+
+    /**
+     * What to do when a script exceeds the <code>timeout</code>, <code>cpuTimeBudget</code> or
+     * <code>allocationBudget</code>: <code>warn</code> or <code>fail</code> the build. When a budget is set, the
+     * time and memory each script used are logged, and they are also written in the <code>timings</code> report.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.budgetExceeded", defaultValue = "warn")
+    private String budgetExceeded;
+
+    /**
+     * Evaluate the scripts in the background and let the build of the module continue, for scripts whose results
+     * are only needed later, like reports. The <code>await</code> goal, bound to a later phase of the module, waits
+     * for them and fails the build if one of them failed, else the build waits for them once all the projects are
+     * built. The scripts must not change the project model, which the next goals read concurrently.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.async", defaultValue = "false")
+    private boolean async;
+
+    /**
+     * Evaluate the scripts once for the whole reactor instead of once per module: <code>first</code> evaluates them
+     * in the first module reaching the execution, the other modules wait for them then skip the execution,
+     * <code>last</code> evaluates them in the last module reaching the execution, once all the modules having it did.
+     * <code>none</code> evaluates them in each module. The modules of the build are bound as <code>projects</code>.
+     * Modules share an evaluation when they have the execution with the same configuration. When the first module
+     * fails, the modules waiting for it fail too; the last module does not wait for the modules whose build failed or
+     * was skipped, and a warning tells when none evaluated the scripts.
+     *
+     * @since 3.1.1
+     */
+    @Parameter(property = "scripting.runOnce", defaultValue = "none")
+    private String runOnce;
+
     // script variables
     @Parameter(defaultValue = "${project}", readonly = true)
     private MavenProject project;
 
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private MojoExecution mojoExecution;
+
+    private final ProjectDependenciesResolver dependenciesResolver;
+
+    @Inject
+    public EvalMojo(ProjectDependenciesResolver dependenciesResolver) {
+        this.dependenciesResolver = dependenciesResolver;
+    }
+
     @Override
     public void execute() throws MojoExecutionException, MojoFailureException {
+        String execution = mojoExecution.getExecutionId();
+        String pluginKey = mojoExecution.getPlugin().getKey();
+        String configured = ConfiguredScripts.executionKey(project, pluginKey, execution);
+        // not in the model when added by a build extension
+        String key = configured != null ? configured : execution;
+        switch (runOnce) {
+            case "none":
+                evaluateExecution();
+                break;
+            case "first":
+                RunOnce once = RunOnce.of(session, getLog());
+                if (once.first(key)) {
+                    Exception failure = null;
+                    try {
+                        evaluateExecution();
+                    } catch (MojoExecutionException | MojoFailureException | RuntimeException e) {
+                        failure = e;
+                        throw e;
+                    } finally {
+                        once.firstDone(key, failure);
+                    }
+                } else {
+                    try {
+                        once.awaitFirst(key);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new MojoExecutionException(
+                                "Interrupted while waiting for the scripts of " + execution, e);
+                    }
+                    getLog().info("Skipping script evaluation, already done for the reactor");
+                }
+                break;
+            case "last":
+                List<String> modules = new ArrayList<>();
+                for (MavenProject module : session.getProjects()) {
+                    if (key.equals(ConfiguredScripts.executionKey(module, pluginKey, execution)) && mayReach(module)) {
+                        modules.add(module.getId());
+                    }
+                }
+                if (RunOnce.of(session, getLog()).last(key, execution, project.getId(), modules)) {
+                    evaluateExecution();
+                } else {
+                    getLog().info("Skipping script evaluation, done by the last module of the reactor");
+                }
+                break;
+            default:
+                throw new MojoExecutionException("Unsupported runOnce '" + runOnce + "', use none, first or last");
+        }
+    }
+
+    /**
+     * @return whether the module can still reach an execution: its build is not done, and none of the modules it
+     *     depends on failed, which skips it
+     */
+    private boolean mayReach(MavenProject module) {
+        if (session.getResult().getBuildSummary(module) != null) {
+            return false;
+        }
+        for (MavenProject upstream : session.getProjectDependencyGraph().getUpstreamProjects(module, true)) {
+            if (session.getResult().getBuildSummary(upstream) instanceof BuildFailure) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void evaluateExecution() throws MojoExecutionException, MojoFailureException {
+        Charset charset = getCharset();
+        ScriptBudget budget = getBudget();
+        ScriptResources resources = ScriptResources.of(session);
         try {
-            AbstractScriptEvaluator execute = constructExecute();
+            List<Script> executes = getScripts();
+            List<AbstractScriptEvaluator> evaluators = new ArrayList<>(executes.size());
+            for (Script execute : executes) {
+                AbstractScriptEvaluator evaluator = constructExecute(execute, charset, resources);
+                evaluator.setBudget(budget);
+                evaluators.add(evaluator);
+            }
+
+            // no engine nor compiler yet, so an up-to-date execution still stops early
+            ScriptClasspath classpath = ScriptClasspath.of(
+                    session,
+                    project,
+                    mojoExecution.getMojoDescriptor().getPluginDescriptor(),
+                    classpathDependencies,
+                    dependenciesResolver);
 
-            Bindings bindings = new SimpleBindings();
-            bindings.put("project", project);
-            bindings.put("log", getLog());
+            String fingerprint = null;
+            if (outputs != null && !outputs.isEmpty()) {
+                ClassLoader loader = classpath.getLoader() != null
+                        ? classpath.getLoader()
+                        : Thread.currentThread().getContextClassLoader();
+                fingerprint = fingerprint(executes, evaluators, loader);
+                if (isUpToDate(fingerprint)) {
+                    getLog().info("Skipping script evaluation, inputs and outputs are up to date");
+                    return;
+                }
+            }
 
-            Object result = execute.eval(bindings, getLog());
+            boolean concurrent = parallel && executes.size() > 1;
+            ScriptEngines engines = new ScriptEngines(getLog(), cacheDirectory, classpath.getEntries(), concurrent);
+            CompiledScriptCache compiledScripts = compiledScriptCacheSize > 0
+                    ? CompiledScriptCache.of(session, compiledScriptCacheSize, classpath.getKey())
+                    : null;
 
-            getLog().info("Result:");
-            if (result != null) {
-                getLog().info(result.toString());
+            String upToDateFingerprint = fingerprint;
+            if (async) {
+                PendingEvaluations.of(session)
+                        .start(
+                                project.getId(),
+                                mojoExecution.getExecutionId(),
+                                () -> evaluate(
+                                        executes,
+                                        evaluators,
+                                        classpath,
+                                        engines,
+                                        compiledScripts,
+                                        budget,
+                                        upToDateFingerprint));
+                getLog().info("Evaluating the scripts in the background, the await goal of the module waits for them");
+                return;
+            }
+            evaluate(executes, evaluators, classpath, engines, compiledScripts, budget, fingerprint);
+        } catch (ScriptException e) // configuring the plugin failed
+        {
+            throw new MojoExecutionException(e.getMessage(), e);
+        } catch (UncheckedIOException e) // reading a script failed
+        {
+            throw new MojoExecutionException("Can't read the script: " + e.getCause(), e.getCause());
+        }
+    }
+
+    /**
+     * Evaluates the scripts of the execution, on the build thread or in the background.
+     */
+    private void evaluate(
+            List<Script> executes,
+            List<AbstractScriptEvaluator> evaluators,
+            ScriptClasspath classpath,
+            ScriptEngines engines,
+            CompiledScriptCache compiledScripts,
+            ScriptBudget budget,
+            String fingerprint)
+            throws MojoExecutionException, MojoFailureException {
+        try {
+            LazyBindings bindings = createBindings();
+
+            Thread thread = Thread.currentThread();
+            ClassLoader oldLoader = thread.getContextClassLoader();
+            if (classpath.getLoader() != null) {
+                thread.setContextClassLoader(classpath.getLoader());
+            }
+            try {
+                if (compiledScripts != null) {
+                    ScriptPrewarm.of(session).await(project.getId(), getLog());
+                    compileBatch(engines, compiledScripts, getCharset(), ScriptResources.of(session));
+                }
+                if (parallel && executes.size() > 1) {
+                    int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+                    List<Object> results = new ParallelEvaluation(poolSize, !budget.needsPlatformThreads())
+                            .eval(evaluators, bindings, engines, compiledScripts);
+                    for (int i = 0; i < results.size(); i++) {
+                        budget.check(getLabel(executes.get(i), i), evaluators.get(i).getUsage(), getLog());
+                        logResult(executes.get(i), results.get(i));
+                    }
+                } else {
+                    for (int i = 0; i < executes.size(); i++) {
+                        Script execute = executes.get(i);
+                        Object result = evaluators.get(i).eval(bindings, engines, compiledScripts);
+
+                        budget.check(getLabel(execute, i), evaluators.get(i).getUsage(), getLog());
+                        logResult(execute, result);
+                        if (execute.getId() != null) {
+                            bindings.put(execute.getId(), result);
+                        }
+                        bindings.put("result", result);
+                    }
+                }
+            } finally {
+                thread.setContextClassLoader(oldLoader);
+            }
+
+            if (timings) {
+                writeTimings(executes, evaluators);
+            }
+            if (fingerprint != null) {
+                storeFingerprint(fingerprint);
             }
         } catch (ScriptException e) // configuring the plugin failed
         {
             throw new MojoExecutionException(e.getMessage(), e);
+        } catch (UncheckedIOException e) // reading a script failed
+        {
+            throw new MojoExecutionException("Can't read the script: " + e.getCause(), e.getCause());
         } catch (UnsupportedScriptEngineException e) // execution failure
         {
             throw new MojoFailureException(e.getMessage(), e);
         }
     }
 
-    private AbstractScriptEvaluator constructExecute() throws IllegalArgumentException {
+    /**
+     * @param loader the class loader the scripts are evaluated with
+     * @return the digest of everything the execution depends on: scripts, engines and declared inputs
+     */
+    private String fingerprint(List<Script> executes, List<AbstractScriptEvaluator> evaluators, ClassLoader loader)
+            throws ScriptException, MojoExecutionException {
+        Fingerprint fingerprint = new Fingerprint();
+        for (int i = 0; i < executes.size(); i++) {
+            Script execute = executes.get(i);
+            fingerprint
+                    .add(execute.getId())
+                    .add(execute.getEngineName())
+                    .add(execute.getScriptFile() != null ? execute.getScriptFile().getName() : null)
+                    .add(execute.getScriptResource())
+                    .add(execute.getScriptClass())
+                    .add(evaluators.get(i).getSource().getDigest());
+        }
+        fingerprint.add(Boolean.toString(parallel));
+        if (classpathDependencies != null) {
+            for (String dependency : classpathDependencies) {
+                fingerprint.add(dependency);
+            }
+        }
+        // the engines come from the plugin dependencies, their versions identify them without any engine lookup
+        fingerprint.add(mojoExecution.getVersion());
+        List<Artifact> pluginArtifacts =
+                mojoExecution.getMojoDescriptor().getPluginDescriptor().getArtifacts();
+        if (pluginArtifacts != null) {
+            for (Artifact artifact : pluginArtifacts) {
+                fingerprint.add(artifact.getId());
+            }
+        }
+        try {
+            // a rebuilt precompiled scripts artifact keeps its coordinates, its content identifies the scripts
+            for (AbstractScriptEvaluator evaluator : evaluators) {
+                File location = evaluator instanceof ClassScriptEvaluator
+                        ? ((ClassScriptEvaluator) evaluator).getLocation(loader)
+                        : null;
+                if (location != null) {
+                    fingerprint.add(location);
+                }
+            }
+            if (inputs != null) {
+                for (File input : inputs) {
+                    fingerprint.add(input);
+                }
+            }
+            for (File output : outputs) {
+                fingerprint.add(output.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't fingerprint the script inputs", e);
+        }
+        return fingerprint.toHex();
+    }
+
+    private boolean isUpToDate(String fingerprint) {
+        for (File output : outputs) {
+            if (!output.exists()) {
+                return false;
+            }
+        }
+        try {
+            Path stored = getFingerprintFile();
+            return Files.exists(stored)
+                    && fingerprint.equals(new String(Files.readAllBytes(stored), StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            getLog().debug(e);
+            return false;
+        }
+    }
+
+    private void storeFingerprint(String fingerprint) throws MojoExecutionException {
+        try {
+            Path stored = getFingerprintFile();
+            Files.createDirectories(stored.getParent());
+            Files.write(stored, fingerprint.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't store the script fingerprint", e);
+        }
+    }
+
+    private Path getFingerprintFile() {
+        return fingerprintDirectory.toPath().resolve(mojoExecution.getExecutionId() + ".sha256");
+    }
+
+    /**
+     * @return the objects exposed to the scripts, the ones which are expensive to compute are only computed when a
+     *     script reads them
+     */
+    private LazyBindings createBindings() {
+        LazyBindings bindings = new LazyBindings();
+        bindings.put("project", project);
+        bindings.put("projects", session.getProjects());
+        bindings.put("log", getLog());
+        bindings.put("session", session);
+        bindings.put("mojoExecution", mojoExecution);
+        bindings.putLazy("settings", session::getSettings);
+
+        Supplier<DependencyResolutionResult> resolution = LazyBindings.memoize(this::resolveDependencies);
+        bindings.putLazy("dependencies", () -> resolution.get().getDependencies());
+        bindings.putLazy("dependencyGraph", () -> resolution.get().getDependencyGraph());
+        return bindings;
+    }
+
+    private DependencyResolutionResult resolveDependencies() {
+        try {
+            return dependenciesResolver.resolve(
+                    new DefaultDependencyResolutionRequest(project, session.getRepositorySession()));
+        } catch (DependencyResolutionException e) {
+            throw new IllegalStateException("Can't resolve the dependencies of " + project.getId(), e);
+        }
+    }
+
+    private void compileBatch(
+            ScriptEngines engines, CompiledScriptCache compiledScripts, Charset charset, ScriptResources resources)
+            throws MojoExecutionException {
+        String pluginKey = mojoExecution.getPlugin().getKey();
+        switch (batchCompilation) {
+            case "none":
+                break;
+            case "module":
+                BatchCompilation.of(session)
+                        .compile(
+                                project.getId(),
+                                Collections.singletonList(project),
+                                pluginKey,
+                                engines,
+                                compiledScripts,
+                                charset,
+                                resources);
+                break;
+            case "reactor":
+                BatchCompilation.of(session)
+                        .compile(
+                                "reactor",
+                                session.getProjects(),
+                                pluginKey,
+                                engines,
+                                compiledScripts,
+                                charset,
+                                resources);
+                break;
+            default:
+                throw new MojoExecutionException(
+                        "Unsupported batchCompilation '" + batchCompilation + "', use none, module or reactor");
+        }
+    }
+
+    private void writeTimings(List<Script> executes, List<AbstractScriptEvaluator> evaluators)
+            throws MojoExecutionException {
+        List<String> labels = new ArrayList<>(executes.size());
+        List<PhaseTimings> scriptTimings = new ArrayList<>(executes.size());
+        List<ScriptBudget.Usage> usages = new ArrayList<>(executes.size());
+        for (int i = 0; i < executes.size(); i++) {
+            labels.add(getLabel(executes.get(i), i));
+            scriptTimings.add(evaluators.get(i).getTimings());
+            usages.add(evaluators.get(i).getUsage());
+        }
+        MavenProject topLevelProject = session.getTopLevelProject() != null ? session.getTopLevelProject() : project;
+        try {
+            TimingReport.of(session, Paths.get(topLevelProject.getBuild().getDirectory(), "scripting-timings.json"))
+                    .add(
+                            project.getGroupId() + ':' + project.getArtifactId(),
+                            mojoExecution.getExecutionId(),
+                            labels,
+                            scriptTimings,
+                            usages,
+                            timingsDirectory.toPath().resolve(mojoExecution.getExecutionId() + ".json"));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't write the script timings", e);
+        }
+    }
+
+    /**
+     * @return the name of the script in reports: its id, file, resource or class, else its position in the execution
+     */
+    private static String getLabel(Script execute, int index) {
+        if (execute.getId() != null) {
+            return execute.getId();
+        }
+        if (execute.getScriptFile() != null) {
+            return execute.getScriptFile().getPath();
+        }
+        if (execute.getScriptResource() != null) {
+            return execute.getScriptResource();
+        }
+        if (execute.getScriptClass() != null) {
+            return execute.getScriptClass();
+        }
+        return "script " + (index + 1);
+    }
+
+    private void logResult(Script execute, Object result) {
+        if (execute.getId() != null) {
+            getLog().info("Result of " + execute.getId() + ":");
+        } else {
+            getLog().info("Result:");
+        }
+        if (result != null) {
+            getLog().info(result.toString());
+        }
+    }
+
+    /**
+     * @return the scripts to evaluate in order, the one configured on the execution first
+     */
+    private List<Script> getScripts() throws IllegalArgumentException {
+        List<Script> executes = new ArrayList<>();
+        if (scriptFile != null || scriptResource != null || script != null || scriptClass != null) {
+            executes.add(new Script(engineName, script, scriptFile, scriptResource, scriptClass));
+        }
+        if (scripts != null) {
+            executes.addAll(scripts);
+        }
+        if (executes.isEmpty()) {
+            throw new IllegalArgumentException("Missing script or scriptFile provided");
+        }
+        return executes;
+    }
+
+    private ScriptBudget getBudget() throws MojoExecutionException {
+        if (!"warn".equals(budgetExceeded) && !"fail".equals(budgetExceeded)) {
+            throw new MojoExecutionException("Unsupported budgetExceeded '" + budgetExceeded + "', use warn or fail");
+        }
+        return new ScriptBudget(timeout, cpuTimeBudget, allocationBudget * 1024 * 1024, "fail".equals(budgetExceeded));
+    }
+
+    private Charset getCharset() throws MojoExecutionException {
+        return toCharset(encoding);
+    }
+
+    /**
+     * @param encoding the configured encoding, can be null
+     * @return the charset of the encoding, the platform one when not set
+     * @throws MojoExecutionException if the encoding is not supported
+     */
+    static Charset toCharset(String encoding) throws MojoExecutionException {
+        if (encoding == null || encoding.isEmpty()) {
+            return Charset.defaultCharset();
+        }
+        try {
+            return Charset.forName(encoding);
+        } catch (IllegalArgumentException e) {
+            throw new MojoExecutionException("Unsupported encoding '" + encoding + "'", e);
+        }
+    }
+
+    static AbstractScriptEvaluator constructExecute(Script script, Charset charset, ScriptResources resources)
+            throws IllegalArgumentException {
         AbstractScriptEvaluator execute;
 
-        if (scriptFile != null) {
-            execute = new FileScriptEvaluator(engineName, scriptFile);
+        if (script.getScriptClass() != null) {
+            execute = new ClassScriptEvaluator(script.getScriptClass());
+
+        } else if (script.getScriptFile() != null) {
+            execute = new FileScriptEvaluator(script.getEngineName(), script.getScriptFile(), charset);
 
-        } else if (scriptResource != null) {
-            execute = new ResourceScriptEvaluator(engineName, scriptResource);
+        } else if (script.getScriptResource() != null) {
+            String precompiled = resources.getPrecompiledClass(
+                    ResourceScriptEvaluator.class.getClassLoader(), script.getScriptResource());
+            execute = precompiled != null
+                    ? new ClassScriptEvaluator(precompiled)
+                    : new ResourceScriptEvaluator(
+                            script.getEngineName(), script.getScriptResource(), charset, resources);
 
-        } else if (script != null) {
-            execute = new StringScriptEvaluator(engineName, script);
+        } else if (script.getScript() != null) {
+            execute = new StringScriptEvaluator(script.getEngineName(), script.getScript());
 
         } else {
             throw new IllegalArgumentException("Missing script or scriptFile provided");
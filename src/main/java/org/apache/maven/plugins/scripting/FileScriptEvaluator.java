@@ -20,13 +20,17 @@ package org.apache.maven.plugins.scripting;
 
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.Reader;
 import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
 
 /**
  * Evaluates a script held in a file. Use the engine name to override the engine if the file name does not refer/decode
@@ -46,14 +50,30 @@ public class FileScriptEvaluator extends AbstractScriptEvaluator {
      */
     private final String engineName;
 
+    /**
+     * Not null encoding of the file.
+     */
+    private final Charset charset;
+
     /**
      * @param engineName optional engine name, used to override the engine selection from the file extension
      * @param scriptFile not null
      */
     public FileScriptEvaluator(String engineName, File scriptFile) {
+        this(engineName, scriptFile, Charset.defaultCharset());
+    }
+
+    /**
+     * @param engineName optional engine name, used to override the engine selection from the file extension
+     * @param scriptFile not null
+     * @param charset not null encoding of the file
+     * @since 3.1.1
+     */
+    public FileScriptEvaluator(String engineName, File scriptFile, Charset charset) {
         this.scriptFile = scriptFile;
 
         this.engineName = engineName;
+        this.charset = charset;
     }
 
     /**
@@ -64,7 +84,7 @@ public class FileScriptEvaluator extends AbstractScriptEvaluator {
      * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#eval(javax.script.ScriptEngine, javax.script.ScriptContext)
      */
     protected Object eval(ScriptEngine engine, ScriptContext context) throws ScriptException {
-        try (FileReader reader = new FileReader(scriptFile)) {
+        try (Reader reader = Files.newBufferedReader(scriptFile.toPath(), charset)) {
             return engine.eval(reader, context);
         } catch (IOException ex) {
             throw new UncheckedIOException(scriptFile + " caused:", ex);
@@ -72,17 +92,30 @@ public class FileScriptEvaluator extends AbstractScriptEvaluator {
     }
 
     /**
-     * Gets the script engine by engineName, otherwise by extension of the sciptFile.
+     * @return the content of the scriptFile
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getSource()
+     */
+    protected ScriptSource getSource() {
+        try {
+            return ScriptSource.read(scriptFile.toPath(), charset);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(scriptFile + " caused:", ex);
+        }
+    }
+
+    /**
+     * Gets the script engine factory by engineName, otherwise by extension of the sciptFile.
      *
-     * @param manager the script engine manager
+     * @param index the script engine factory index
      * @throws UnsupportedScriptEngineException if specified engine is not available
-     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngine(javax.script.ScriptEngineManager)
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngineFactory(ScriptEngineFactoryIndex)
      */
-    protected ScriptEngine getEngine(ScriptEngineManager manager) throws UnsupportedScriptEngineException {
-        ScriptEngine result;
+    protected ScriptEngineFactory getEngineFactory(ScriptEngineFactoryIndex index)
+            throws UnsupportedScriptEngineException {
+        ScriptEngineFactory result;
 
         if (engineName != null && !engineName.isEmpty()) {
-            result = manager.getEngineByName(engineName);
+            result = index.getByName(engineName);
 
             if (result == null) {
                 throw new UnsupportedScriptEngineException("No engine found by name \"" + engineName + "\n");
@@ -94,7 +127,7 @@ public class FileScriptEvaluator extends AbstractScriptEvaluator {
             if (position >= 0) {
                 extension = extension.substring(position + 1);
             }
-            result = manager.getEngineByExtension(extension);
+            result = index.getByExtension(extension);
 
             if (result == null) {
                 throw new UnsupportedScriptEngineException("No engine found by extension \"" + extension + "\n");
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import org.apache.maven.plugins.scripting.engine.Digests;
+
+/**
+ * Accumulates the inputs of an execution into a digest, so an execution can be skipped when it did not change since
+ * its last successful run.
+ */
+final class Fingerprint {
+    private final MessageDigest digest = Digests.sha256();
+
+    private final byte[] buffer = new byte[8192];
+
+    /**
+     * @param value a value the execution depends on, can be null
+     * @return this
+     */
+    Fingerprint add(String value) {
+        if (value != null) {
+            digest.update(value.getBytes(StandardCharsets.UTF_8));
+        }
+        // separator so concatenated values can't collide
+        digest.update((byte) 0);
+        return this;
+    }
+
+    /**
+     * @param file a file or a directory, whose files are added recursively in name order
+     * @return this
+     * @throws IOException if a file can't be read
+     */
+    Fingerprint add(File file) throws IOException {
+        add(file.getAbsolutePath());
+        if (file.isDirectory()) {
+            File[] children = file.listFiles();
+            if (children != null) {
+                Arrays.sort(children);
+                for (File child : children) {
+                    add(child);
+                }
+            }
+        } else if (file.isFile()) {
+            Path path = file.toPath();
+            try (InputStream in = Files.newInputStream(path)) {
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+        } else {
+            add("<missing>");
+        }
+        return this;
+    }
+
+    /**
+     * @return the hexadecimal fingerprint, this instance must not be used anymore
+     */
+    String toHex() {
+        return Digests.toHex(digest.digest());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.Bindings;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bindings whose values can be computed on first access, so expensive objects like resolved dependencies are only
+ * computed for the scripts reading them. A lazy value is computed once, even when shared by the copies of the
+ * bindings given to concurrent scripts. Iterating over the entries computes the values of the visited entries.
+ */
+final class LazyBindings extends AbstractMap<String, Object> implements Bindings {
+    /**
+     * Values by name, {@link Lazy} for the values which may not be computed yet.
+     */
+    private final Map<String, Object> values;
+
+    LazyBindings() {
+        this(new HashMap<>());
+    }
+
+    private LazyBindings(Map<String, Object> values) {
+        this.values = values;
+    }
+
+    /**
+     * @param supplier computes the value
+     * @param <T> the value type
+     * @return a supplier calling the given one once, on first use
+     */
+    static <T> Supplier<T> memoize(Supplier<T> supplier) {
+        Lazy lazy = new Lazy(supplier);
+        return () -> {
+            @SuppressWarnings("unchecked")
+            T value = (T) lazy.get();
+            return value;
+        };
+    }
+
+    /**
+     * @param name the binding name
+     * @param supplier computes the value the first time a script reads it
+     */
+    void putLazy(String name, Supplier<?> supplier) {
+        checkKey(name);
+        values.put(name, new Lazy(supplier));
+    }
+
+    /**
+     * @return new bindings with the same values, sharing the lazy values which are not computed yet
+     */
+    LazyBindings copy() {
+        return new LazyBindings(new HashMap<>(values));
+    }
+
+    /**
+     * @return the previous value, {@code null} for a lazy one which was not computed
+     */
+    @Override
+    public Object put(String name, Object value) {
+        checkKey(name);
+        return peek(values.put(name, value));
+    }
+
+    @Override
+    public Object get(Object key) {
+        checkKey(key);
+        return unwrap(values.get(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        checkKey(key);
+        return values.containsKey(key);
+    }
+
+    /**
+     * @return the previous value, {@code null} for a lazy one which was not computed
+     */
+    @Override
+    public Object remove(Object key) {
+        checkKey(key);
+        return peek(values.remove(key));
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public void clear() {
+        values.clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<Entry<String, Object>>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                Iterator<Entry<String, Object>> entries = values.entrySet().iterator();
+                return new Iterator<Entry<String, Object>>() {
+                    @Override
+                    public boolean hasNext() {
+                        return entries.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        Entry<String, Object> entry = entries.next();
+                        return new SimpleImmutableEntry<>(entry.getKey(), unwrap(entry.getValue()));
+                    }
+
+                    @Override
+                    public void remove() {
+                        entries.remove();
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+        };
+    }
+
+    private static Object unwrap(Object value) {
+        return value instanceof Lazy ? ((Lazy) value).get() : value;
+    }
+
+    private static Object peek(Object value) {
+        return value instanceof Lazy ? ((Lazy) value).peek() : value;
+    }
+
+    private static void checkKey(Object key) {
+        if (key == null) {
+            throw new NullPointerException("key can not be null");
+        }
+        if (!(key instanceof String)) {
+            throw new ClassCastException("key should be a String");
+        }
+        if (((String) key).isEmpty()) {
+            throw new IllegalArgumentException("key can not be empty");
+        }
+    }
+
+    private static final class Lazy {
+        private Supplier<?> supplier;
+
+        private Object value;
+
+        private Lazy(Supplier<?> supplier) {
+            this.supplier = supplier;
+        }
+
+        synchronized Object get() {
+            if (supplier != null) {
+                value = supplier.get();
+                supplier = null;
+            }
+            return value;
+        }
+
+        synchronized Object peek() {
+            return value;
+        }
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.Bindings;
+import javax.script.SimpleBindings;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Evaluates independent scripts concurrently on a bounded pool, using virtual threads when the JVM has them.
+ * Each script gets its own bindings and context, failures are reported together once all scripts completed.
+ */
+final class ParallelEvaluation {
+    private final int threads;
+
+    private final boolean virtualThreads;
+
+    /**
+     * @param threads maximum number of scripts evaluated at the same time
+     */
+    ParallelEvaluation(int threads) {
+        this(threads, true);
+    }
+
+    /**
+     * @param threads maximum number of scripts evaluated at the same time
+     * @param virtualThreads {@code false} to evaluate the scripts on platform threads, whose CPU time and
+     *        allocations the JVM measures
+     */
+    ParallelEvaluation(int threads, boolean virtualThreads) {
+        this.threads = threads;
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * @param evaluators the scripts to evaluate
+     * @param bindings the bindings each script gets a copy of
+     * @param engines concurrent engines provider
+     * @param compiledScripts possibly null cache of compiled scripts
+     * @return the results of the scripts, in the order of the evaluators
+     * @throws MojoExecutionException if any script failed, with each failure as suppressed exception
+     * @throws MojoFailureException if the first failing script, in the order of the evaluators, has no engine: the
+     *     failure the serial evaluation reports
+     */
+    List<Object> eval(
+            List<AbstractScriptEvaluator> evaluators,
+            Bindings bindings,
+            ScriptEngines engines,
+            CompiledScriptCache compiledScripts)
+            throws MojoExecutionException, MojoFailureException {
+        ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(threads, evaluators.size()), virtualThreads ? threadFactory() : platformThreadFactory());
+        try {
+            List<Future<Object>> futures = new ArrayList<>(evaluators.size());
+            for (AbstractScriptEvaluator evaluator : evaluators) {
+                futures.add(executor.submit(() -> {
+                    Thread thread = Thread.currentThread();
+                    ClassLoader oldLoader = thread.getContextClassLoader();
+                    thread.setContextClassLoader(loader);
+                    try {
+                        // lazy values are shared so each one is computed once for all the scripts
+                        Bindings copy = bindings instanceof LazyBindings
+                                ? ((LazyBindings) bindings).copy()
+                                : new SimpleBindings(new HashMap<>(bindings));
+                        return evaluator.eval(copy, engines, compiledScripts);
+                    } finally {
+                        thread.setContextClassLoader(oldLoader);
+                    }
+                }));
+            }
+
+            List<Object> results = new ArrayList<>(futures.size());
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<Object> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    results.add(null);
+                    failures.add(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new MojoExecutionException("Interrupted while evaluating scripts", e);
+                }
+            }
+            if (!failures.isEmpty()) {
+                String message = failures.size() + " of " + futures.size() + " scripts failed: "
+                        + failures.get(0).getMessage();
+                // same mapping as the serial evaluation, which stops at the first failure
+                if (failures.get(0) instanceof UnsupportedScriptEngineException) {
+                    MojoFailureException error = new MojoFailureException(message);
+                    failures.forEach(error::addSuppressed);
+                    throw error;
+                }
+                MojoExecutionException error = new MojoExecutionException(message);
+                failures.forEach(error::addSuppressed);
+                throw error;
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return a virtual thread factory when available (Java 21+), a daemon platform thread one otherwise
+     */
+    private static ThreadFactory threadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method name = Class.forName("java.lang.Thread$Builder").getMethod("name", String.class, long.class);
+            builder = name.invoke(builder, "scripting-eval-", 1L);
+            return (ThreadFactory) Class.forName("java.lang.Thread$Builder")
+                    .getMethod("factory")
+                    .invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            return platformThreadFactory();
+        }
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return task -> {
+            Thread thread = new Thread(task, "scripting-eval-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+
+/**
+ * Evaluations started in the background by the executions of a module, until the <code>await</code> goal of the
+ * module joins them. Each evaluation runs on its own daemon thread. The evaluations of the modules without
+ * <code>await</code> are joined once all the projects are built, so their failures still fail the build.
+ */
+final class PendingEvaluations {
+    private final Map<String, List<Pending>> pending = new HashMap<>();
+
+    private boolean joinedAtSessionEnd;
+
+    /**
+     * @param session the current session
+     * @return the evaluations pending in the build
+     */
+    static PendingEvaluations of(MavenSession session) {
+        PendingEvaluations evaluations = SessionScope.get(
+                session, PendingEvaluations.class, PendingEvaluations.class, PendingEvaluations::new);
+        synchronized (evaluations.pending) {
+            if (!evaluations.joinedAtSessionEnd) {
+                evaluations.joinedAtSessionEnd = true;
+                SessionEnd.register(session, SessionEnd.Stage.AWAIT, evaluations::awaitAll);
+            }
+        }
+        return evaluations;
+    }
+
+    /**
+     * Starts an evaluation in the background.
+     *
+     * @param module the identifier of the module of the execution
+     * @param execution the identifier of the execution
+     * @param evaluation what to evaluate
+     */
+    void start(String module, String execution, Evaluation evaluation) {
+        Pending task = new Pending(execution, evaluation);
+        synchronized (pending) {
+            pending.computeIfAbsent(module, key -> new ArrayList<>()).add(task);
+        }
+        Thread thread = new Thread(task, "scripting-async-" + execution);
+        thread.setDaemon(true);
+        thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+        thread.start();
+    }
+
+    /**
+     * Waits for the evaluations of a module started so far, in the order they started.
+     *
+     * @param module the identifier of the module
+     * @return the identifiers of the executions whose evaluation completed
+     * @throws MojoExecutionException if an evaluation failed to run, or the wait was interrupted
+     * @throws MojoFailureException if an evaluation failed the build
+     */
+    List<String> await(String module) throws MojoExecutionException, MojoFailureException {
+        List<Pending> tasks;
+        synchronized (pending) {
+            tasks = pending.remove(module);
+        }
+        if (tasks == null) {
+            return Collections.emptyList();
+        }
+
+        List<String> executions = new ArrayList<>(tasks.size());
+        List<Exception> failures = new ArrayList<>();
+        for (Pending task : tasks) {
+            executions.add(task.execution);
+            try {
+                task.get();
+            } catch (ExecutionException e) {
+                failures.add(e.getCause() instanceof Exception ? (Exception) e.getCause() : e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MojoExecutionException("Interrupted while waiting for the scripts of " + module, e);
+            }
+        }
+        if (failures.size() == 1 && failures.get(0) instanceof MojoFailureException) {
+            throw (MojoFailureException) failures.get(0);
+        }
+        if (failures.size() == 1 && failures.get(0) instanceof MojoExecutionException) {
+            throw (MojoExecutionException) failures.get(0);
+        }
+        if (!failures.isEmpty()) {
+            MojoExecutionException error = new MojoExecutionException(failures.size() + " of " + tasks.size()
+                    + " background evaluations failed: " + failures.get(0).getMessage());
+            failures.forEach(error::addSuppressed);
+            throw error;
+        }
+        return executions;
+    }
+
+    /**
+     * Waits for the evaluations no <code>await</code> goal joined.
+     *
+     * @throws MojoExecutionException if an evaluation failed to run, or the wait was interrupted
+     * @throws MojoFailureException if an evaluation failed the build
+     */
+    void awaitAll() throws MojoExecutionException, MojoFailureException {
+        List<String> modules;
+        synchronized (pending) {
+            modules = new ArrayList<>(pending.keySet());
+        }
+        Exception failure = null;
+        for (String module : modules) {
+            try {
+                await(module);
+            } catch (MojoExecutionException | MojoFailureException e) {
+                String message = "Background evaluation of the scripts of " + module + " failed: " + e.getMessage();
+                Exception error = e instanceof MojoFailureException
+                        ? new MojoFailureException(message, e)
+                        : new MojoExecutionException(message, e);
+                if (failure == null) {
+                    failure = error;
+                } else {
+                    failure.addSuppressed(error);
+                }
+            }
+        }
+        if (failure instanceof MojoFailureException) {
+            throw (MojoFailureException) failure;
+        }
+        if (failure != null) {
+            throw (MojoExecutionException) failure;
+        }
+    }
+
+    /**
+     * Evaluation of the scripts of an execution.
+     */
+    @FunctionalInterface
+    interface Evaluation {
+        /**
+         * @throws MojoExecutionException if a script failed to run
+         * @throws MojoFailureException if a script failed the build
+         */
+        void run() throws MojoExecutionException, MojoFailureException;
+    }
+
+    private static final class Pending extends FutureTask<Void> {
+        private final String execution;
+
+        private Pending(String execution, Evaluation evaluation) {
+            super(() -> {
+                evaluation.run();
+                return null;
+            });
+            this.execution = execution;
+        }
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.inject.Inject;
+import javax.lang.model.SourceVersion;
+import javax.script.ScriptException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.scripting.engine.JavaEngine;
+import org.apache.maven.plugins.scripting.engine.JavaEngineFactory;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
+
+/**
+ * Compiles java scripts to classes packaged with the project, so the builds using them through a plugin dependency
+ * evaluate them without compiling them. The scripts are wrapped the same way the java engine does before javac is
+ * called, a script <code>tools/hello.java</code> becomes the class <code>&lt;packageName&gt;.tools.hello</code>.
+ * An index of the compiled scripts lets the executions referencing them as <code>scriptResource</code>, like
+ * <code>tools/hello.java</code>, use the compiled class too.
+ *
+ * @since 3.1.1
+ */
+@Mojo(name = "precompile", defaultPhase = LifecyclePhase.PROCESS_CLASSES, threadSafe = true)
+public class PrecompileMojo extends AbstractMojo {
+    /**
+     * Directory of the java scripts to compile, all its <code>.java</code> files are compiled.
+     */
+    @Parameter(defaultValue = "${project.basedir}/src/main/scripts")
+    private File scriptsDirectory;
+
+    /**
+     * Where the script classes and their index are written, packaged by the project.
+     */
+    @Parameter(defaultValue = "${project.build.outputDirectory}")
+    private File outputDirectory;
+
+    /**
+     * Package of the script classes, the directories of the scripts being sub packages.
+     * Invalid characters are replaced by <code>_</code>.
+     */
+    @Parameter(defaultValue = "${project.groupId}.${project.artifactId}")
+    private String packageName;
+
+    /**
+     * Encoding of the scripts, the platform encoding when not set.
+     */
+    @Parameter(property = "scripting.encoding", defaultValue = "${project.build.sourceEncoding}")
+    private String encoding;
+
+    /**
+     * Java release the script classes are compiled for, the one of the JDK running the build when not set.
+     * Set it to the oldest JDK of the builds using the scripts.
+     */
+    @Parameter(property = "maven.compiler.release")
+    private String release;
+
+    /**
+     * Plugin or project dependencies the scripts use, see the <code>eval</code> goal.
+     */
+    @Parameter
+    private List<String> classpathDependencies;
+
+    @Parameter(defaultValue = "${project}", readonly = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${session}", readonly = true)
+    private MavenSession session;
+
+    @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+    private MojoExecution mojoExecution;
+
+    private final ProjectDependenciesResolver dependenciesResolver;
+
+    @Inject
+    public PrecompileMojo(ProjectDependenciesResolver dependenciesResolver) {
+        this.dependenciesResolver = dependenciesResolver;
+    }
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (!scriptsDirectory.isDirectory()) {
+            getLog().info("No scripts to precompile in " + scriptsDirectory);
+            return;
+        }
+        Charset charset = EvalMojo.toCharset(encoding);
+        Path root = scriptsDirectory.toPath();
+
+        // resource name -> class name, sorted so the index is reproducible
+        Map<String, String> index = new TreeMap<>();
+        Map<String, ScriptSource> scripts = new TreeMap<>();
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.filter(it -> it.getFileName().toString().endsWith(".java")
+                            && Files.isRegularFile(it))
+                    .collect(Collectors.toList())) {
+                String resource = root.relativize(file).toString().replace(File.separatorChar, '/');
+                String className = toClassName(resource);
+                if (scripts.containsKey(className)) {
+                    throw new MojoExecutionException(
+                            "Script " + resource + " and another one map to the same class " + className);
+                }
+                index.put(resource, className);
+                scripts.put(className, ScriptSource.read(file, charset));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't read the scripts of " + scriptsDirectory, e);
+        }
+        if (scripts.isEmpty()) {
+            getLog().info("No scripts to precompile in " + scriptsDirectory);
+            return;
+        }
+
+        JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setLog(getLog());
+        engine.setClasspath(ScriptClasspath.of(
+                        session,
+                        project,
+                        mojoExecution.getMojoDescriptor().getPluginDescriptor(),
+                        classpathDependencies,
+                        dependenciesResolver)
+                .getEntries());
+        List<String> options = release != null && !release.trim().isEmpty()
+                ? Arrays.asList("--release", release.trim())
+                : Collections.emptyList();
+        Map<String, byte[]> classes;
+        try {
+            classes = engine.compileClasses(scripts, options);
+        } catch (ScriptException e) {
+            throw new MojoFailureException(e.getMessage(), e);
+        }
+
+        try {
+            Path output = outputDirectory.toPath();
+            for (Map.Entry<String, byte[]> clazz : classes.entrySet()) {
+                Path file = output.resolve(clazz.getKey().replace('.', '/') + ".class");
+                Files.createDirectories(file.getParent());
+                Files.write(file, clazz.getValue());
+            }
+            Path indexFile = output.resolve(ScriptResources.PRECOMPILED_INDEX);
+            Files.createDirectories(indexFile.getParent());
+            Files.write(indexFile, toProperties(index).getBytes(StandardCharsets.ISO_8859_1));
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't write the precompiled scripts to " + outputDirectory, e);
+        }
+        getLog().info("Precompiled " + scripts.size() + " script" + (scripts.size() == 1 ? "" : "s") + " to "
+                + outputDirectory);
+    }
+
+    /**
+     * @param resource the script path relative to the scripts directory
+     * @return the binary name of its class
+     */
+    private String toClassName(String resource) {
+        List<String> segments = new ArrayList<>(Arrays.asList(packageName.split("\\.")));
+        String[] path = resource.substring(0, resource.length() - ".java".length()).split("/");
+        segments.addAll(Arrays.asList(path));
+        StringBuilder className = new StringBuilder();
+        for (String segment : segments) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (className.length() > 0) {
+                className.append('.');
+            }
+            className.append(toIdentifier(segment));
+        }
+        return className.toString();
+    }
+
+    private static String toIdentifier(String segment) {
+        StringBuilder identifier = new StringBuilder(segment.length() + 1);
+        if (!Character.isJavaIdentifierStart(segment.charAt(0))) {
+            identifier.append('_');
+        }
+        for (char c : segment.toCharArray()) {
+            identifier.append(Character.isJavaIdentifierPart(c) ? c : '_');
+        }
+        String value = identifier.toString();
+        return SourceVersion.isKeyword(value) ? value + '_' : value;
+    }
+
+    /**
+     * @return the index in the properties format, without the timestamp {@link Properties#store} adds
+     */
+    private static String toProperties(Map<String, String> index) throws IOException {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, String> entry : index.entrySet()) {
+            Properties single = new Properties();
+            single.setProperty(entry.getKey(), entry.getValue());
+            StringWriter writer = new StringWriter();
+            single.store(writer, null);
+            for (String line : writer.toString().split("\\R")) {
+                if (!line.startsWith("#") && !line.isEmpty()) {
+                    out.append(line).append('\n');
+                }
+            }
+        }
+        return out.toString();
+    }
+}
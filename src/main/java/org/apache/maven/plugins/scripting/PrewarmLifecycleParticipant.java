@@ -0,0 +1,95 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.maven.AbstractMavenLifecycleParticipant;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.monitor.logging.DefaultLog;
+import org.apache.maven.plugin.descriptor.PluginDescriptorBuilder;
+import org.apache.maven.plugin.logging.Log;
+import org.codehaus.plexus.configuration.PlexusConfigurationException;
+import org.codehaus.plexus.logging.Logger;
+
+/**
+ * Starts preparing the scripts of the build as soon as its projects are read, see {@link ScriptPrewarm}. Maven only
+ * runs it when the plugin is declared with <code>&lt;extensions&gt;true&lt;/extensions&gt;</code>, and the
+ * <code>scripting.prewarm</code> property set to <code>false</code> disables it.
+ *
+ * @since 3.1.1
+ */
+@Named("scripting-prewarm")
+@Singleton
+public class PrewarmLifecycleParticipant extends AbstractMavenLifecycleParticipant {
+    private final Logger logger;
+
+    @Inject
+    public PrewarmLifecycleParticipant(Logger logger) {
+        this.logger = logger;
+    }
+
+    @Override
+    public void afterProjectsRead(MavenSession session) {
+        String prewarm = session.getUserProperties()
+                .getProperty("scripting.prewarm", session.getSystemProperties().getProperty("scripting.prewarm"));
+        if (prewarm != null && !Boolean.parseBoolean(prewarm)) {
+            return;
+        }
+        Log log = new DefaultLog(logger);
+        String pluginKey = pluginKey(log);
+        if (pluginKey != null) {
+            ScriptPrewarm.of(session).start(session, pluginKey, getClass().getClassLoader(), log);
+        }
+    }
+
+    /**
+     * @return the <code>groupId:artifactId</code> of the plugin declared in the descriptor of its jar, null when it
+     *     can't be read
+     */
+    private String pluginKey(Log log) {
+        URL location = getClass().getProtectionDomain().getCodeSource().getLocation();
+        // only the descriptor of this jar, not the ones of its dependencies
+        try (URLClassLoader jar = new URLClassLoader(new URL[] {location}, null)) {
+            URL descriptor = jar.findResource("META-INF/maven/plugin.xml");
+            if (descriptor == null) {
+                log.debug("No plugin descriptor in " + location + ", the scripts are not prepared");
+                return null;
+            }
+            URLConnection connection = descriptor.openConnection();
+            connection.setUseCaches(false);
+            try (Reader reader = new InputStreamReader(connection.getInputStream(), StandardCharsets.UTF_8)) {
+                return new PluginDescriptorBuilder().build(reader).getPluginLookupKey();
+            }
+        } catch (IOException | PlexusConfigurationException e) {
+            log.debug("Can't read the plugin descriptor of " + location + ", the scripts are not prepared", e);
+            return null;
+        }
+    }
+}
@@ -20,14 +20,12 @@ package org.apache.maven.plugins.scripting;
 
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
 
 /**
  * Evaluates a script held in a resource. Use the engine name to override the engine if the resource name does not
@@ -47,14 +45,46 @@ public class ResourceScriptEvaluator extends AbstractScriptEvaluator {
      */
     private final String engineName;
 
+    /**
+     * Not null encoding of the resource.
+     */
+    private final Charset charset;
+
+    /**
+     * Not null cache of the resources read by the evaluators.
+     */
+    private final ScriptResources resources;
+
     /**
      * @param engineName optional engine name, used to override the engine selection from the file extension
      * @param resourceName not null
      */
     public ResourceScriptEvaluator(String engineName, String resourceName) {
+        this(engineName, resourceName, Charset.defaultCharset());
+    }
+
+    /**
+     * @param engineName optional engine name, used to override the engine selection from the file extension
+     * @param resourceName not null
+     * @param charset not null encoding of the resource
+     * @since 3.1.1
+     */
+    public ResourceScriptEvaluator(String engineName, String resourceName, Charset charset) {
+        this(engineName, resourceName, charset, new ScriptResources());
+    }
+
+    /**
+     * @param engineName optional engine name, used to override the engine selection from the file extension
+     * @param resourceName not null
+     * @param charset not null encoding of the resource
+     * @param resources not null cache of the resources, usually the one of the session
+     */
+    ResourceScriptEvaluator(String engineName, String resourceName, Charset charset, ScriptResources resources) {
         this.resourceName = resourceName;
 
         this.engineName = engineName;
+        this.charset = charset;
+        this.resources = resources;
     }
 
     /**
@@ -65,27 +95,31 @@ public class ResourceScriptEvaluator extends AbstractScriptEvaluator {
      * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#eval(javax.script.ScriptEngine, javax.script.ScriptContext)
      */
     protected Object eval(ScriptEngine engine, ScriptContext context) throws ScriptException {
+        return engine.eval(getSource().getText(), context);
+    }
 
-        try (InputStream is = this.getClass().getClassLoader().getResourceAsStream(resourceName);
-                Reader reader = new InputStreamReader(is)) {
-            return engine.eval(reader, context);
-        } catch (IOException ex) {
-            throw new UncheckedIOException(resourceName + " caused:", ex);
-        }
+    /**
+     * @return the content of the resource
+     * @throws ScriptException if no plugin dependency has the resource
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getSource()
+     */
+    protected ScriptSource getSource() throws ScriptException {
+        return resources.get(getClass().getClassLoader(), resourceName, charset);
     }
 
     /**
-     * Gets the script engine by engineName, otherwise by extension of the sciptFile.
+     * Gets the script engine factory by engineName, otherwise by extension of the sciptFile.
      *
-     * @param manager the script engine manager
+     * @param index the script engine factory index
      * @throws UnsupportedScriptEngineException if specified engine is not available
-     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngine(javax.script.ScriptEngineManager)
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngineFactory(ScriptEngineFactoryIndex)
      */
-    protected ScriptEngine getEngine(ScriptEngineManager manager) throws UnsupportedScriptEngineException {
-        ScriptEngine result;
+    protected ScriptEngineFactory getEngineFactory(ScriptEngineFactoryIndex index)
+            throws UnsupportedScriptEngineException {
+        ScriptEngineFactory result;
 
         if (engineName != null && !engineName.isEmpty()) {
-            result = manager.getEngineByName(engineName);
+            result = index.getByName(engineName);
 
             if (result == null) {
                 throw new UnsupportedScriptEngineException("No engine found by name \"" + engineName + "\n");
@@ -102,7 +136,7 @@ public class ResourceScriptEvaluator extends AbstractScriptEvaluator {
             if (position >= 0) {
                 extension = name.substring(position + 1);
             }
-            result = manager.getEngineByExtension(extension);
+            result = index.getByExtension(extension);
 
             if (result == null) {
                 throw new UnsupportedScriptEngineException("No engine found by extension \"" + extension + "\n");
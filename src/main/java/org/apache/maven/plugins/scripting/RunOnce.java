@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Elects the module evaluating an execution configured to run once for the whole reactor: the first module reaching
+ * the execution, or the last one once all the modules having the execution reached it. Modules of a parallel build
+ * reaching it concurrently are coordinated so exactly one of them evaluates it. Executions are identified by their
+ * id and configuration, see {@link ConfiguredScripts#executionKey}.
+ */
+final class RunOnce {
+    private final Map<String, First> firsts = new ConcurrentHashMap<>();
+
+    private final Map<String, Last> lasts = new ConcurrentHashMap<>();
+
+    private boolean reportedAtSessionEnd;
+
+    /**
+     * @param session the current session
+     * @param log where to warn about the executions no last module evaluated, once the session ended
+     * @return the run once executions of the session
+     */
+    static RunOnce of(MavenSession session, Log log) {
+        RunOnce once = SessionScope.get(session, RunOnce.class, RunOnce.class, RunOnce::new);
+        synchronized (once.lasts) {
+            if (!once.reportedAtSessionEnd) {
+                once.reportedAtSessionEnd = true;
+                SessionEnd.register(session, SessionEnd.Stage.REPORT, () -> once.warnNotEvaluated(log));
+            }
+        }
+        return once;
+    }
+
+    /**
+     * @param key the key of the execution
+     * @return {@code true} when the calling module is the first one to reach the execution and has to evaluate it,
+     *         then call {@link #firstDone(String, Exception)}
+     */
+    boolean first(String key) {
+        return firsts.putIfAbsent(key, new First()) == null;
+    }
+
+    /**
+     * Waits for the module evaluating the execution, so the modules after it see what its scripts produced.
+     *
+     * @param key the key of the execution
+     * @throws InterruptedException if the wait was interrupted
+     * @throws MojoExecutionException if the scripts failed to run in the first module
+     * @throws MojoFailureException if the scripts failed the build in the first module
+     */
+    void awaitFirst(String key) throws InterruptedException, MojoExecutionException, MojoFailureException {
+        First first = firsts.get(key);
+        first.done.await();
+        if (first.failure instanceof MojoFailureException) {
+            throw new MojoFailureException(
+                    "The scripts evaluated once for the reactor failed: " + first.failure.getMessage(), first.failure);
+        }
+        if (first.failure != null) {
+            throw new MojoExecutionException(
+                    "The scripts evaluated once for the reactor failed: " + first.failure.getMessage(), first.failure);
+        }
+    }
+
+    /**
+     * Releases the modules waiting for the evaluation of the execution, they fail too if it failed.
+     *
+     * @param key the key of the execution
+     * @param failure why the evaluation failed, {@code null} if it succeeded
+     */
+    void firstDone(String key, Exception failure) {
+        First first = firsts.get(key);
+        first.failure = failure;
+        first.done.countDown();
+    }
+
+    /**
+     * @param key the key of the execution
+     * @param execution the identifier of the execution, to report it
+     * @param module the identifier of the calling module
+     * @param modules the identifiers of the modules still expected to reach the execution, the calling one included
+     * @return {@code true} when the calling module is the last one of them to reach the execution
+     */
+    boolean last(String key, String execution, String module, Collection<String> modules) {
+        Last last = lasts.computeIfAbsent(key, k -> new Last(execution));
+        synchronized (last) {
+            last.arrived.add(module);
+            last.expected = modules;
+            if (!last.evaluated && last.arrived.containsAll(modules)) {
+                last.evaluated = true;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Warns about the executions no last module evaluated since a module expected to reach them failed.
+     *
+     * @param log where to warn
+     */
+    void warnNotEvaluated(Log log) {
+        for (Last last : lasts.values()) {
+            synchronized (last) {
+                if (!last.evaluated) {
+                    List<String> missing = new ArrayList<>(last.expected);
+                    missing.removeAll(last.arrived);
+                    Collections.sort(missing);
+                    log.warn("The scripts of " + last.execution + " were not evaluated, " + String.join(", ", missing)
+                            + " did not reach the execution");
+                }
+            }
+        }
+    }
+
+    private static final class First {
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        private volatile Exception failure;
+    }
+
+    private static final class Last {
+        private final String execution;
+
+        private final Set<String> arrived = new HashSet<>();
+
+        private Collection<String> expected = Collections.emptyList();
+
+        private boolean evaluated;
+
+        private Last(String execution) {
+            this.execution = execution;
+        }
+    }
+}
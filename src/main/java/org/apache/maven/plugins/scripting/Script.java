@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.io.File;
+
+/**
+ * One script of the {@code scripts} list of an execution, configured as the single script of the mojo.
+ *
+ * @since 3.1.1
+ */
+public class Script {
+    /**
+     * Optional name of the binding exposing the result of this script to the following ones.
+     */
+    private String id;
+
+    private String engineName;
+
+    private String script;
+
+    private File scriptFile;
+
+    private String scriptResource;
+
+    private String scriptClass;
+
+    public Script() {
+        // configured by Maven
+    }
+
+    Script(String engineName, String script, File scriptFile, String scriptResource, String scriptClass) {
+        this.engineName = engineName;
+        this.script = script;
+        this.scriptFile = scriptFile;
+        this.scriptResource = scriptResource;
+        this.scriptClass = scriptClass;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEngineName() {
+        return engineName;
+    }
+
+    public String getScript() {
+        return script;
+    }
+
+    public File getScriptFile() {
+        return scriptFile;
+    }
+
+    public String getScriptResource() {
+        return scriptResource;
+    }
+
+    public String getScriptClass() {
+        return scriptClass;
+    }
+}
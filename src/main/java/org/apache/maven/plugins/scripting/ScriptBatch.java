@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.ScriptEngine;
+import javax.script.ScriptException;
+
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.scripting.engine.JavaEngine;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Scripts configured in the model of projects, compiled before their executions evaluate them into the
+ * {@link CompiledScriptCache} where the executions find them. The java scripts of an engine are compiled together by
+ * a single javac task, the ones of the other {@link javax.script.Compilable} engines one by one if requested.
+ * Precompiled scripts and the ones already cached are skipped, and so are the scripts which can't be read or
+ * compiled: their execution compiles them again and reports the error.
+ */
+final class ScriptBatch {
+    private final ScriptEngineFactoryIndex index;
+
+    private final CompiledScriptCache compiledScripts;
+
+    private final ScriptResources resources;
+
+    private final boolean otherEngines;
+
+    private final Log log;
+
+    private final Map<JavaEngine, Map<String, ScriptSource>> javaSources = new LinkedHashMap<>();
+
+    private final List<ScriptEngine> otherScriptEngines = new ArrayList<>();
+
+    private final List<ScriptSource> otherSources = new ArrayList<>();
+
+    /**
+     * @param index the engine factories of the loader compiling the scripts
+     * @param compiledScripts the cache to add the compiled scripts to
+     * @param resources the script resources of the session
+     * @param otherEngines whether to compile the scripts of the compilable engines other than the java one
+     * @param log where to report the skipped scripts and the failures
+     */
+    ScriptBatch(
+            ScriptEngineFactoryIndex index,
+            CompiledScriptCache compiledScripts,
+            ScriptResources resources,
+            boolean otherEngines,
+            Log log) {
+        this.index = index;
+        this.compiledScripts = compiledScripts;
+        this.resources = resources;
+        this.otherEngines = otherEngines;
+        this.log = log;
+    }
+
+    /**
+     * @param project the project configuring the script
+     * @param script the script
+     * @param engines the engines compiling the script, with the cache directory of its execution
+     * @param charset the encoding of the script file or resource
+     */
+    void add(MavenProject project, Script script, ScriptEngines engines, Charset charset) {
+        try {
+            AbstractScriptEvaluator evaluator = EvalMojo.constructExecute(script, charset, resources);
+            if (evaluator instanceof ClassScriptEvaluator) {
+                return; // already compiled
+            }
+            ScriptEngine engine = engines.get(evaluator.getEngineFactory(index));
+            if (!(engine instanceof JavaEngine || otherEngines) || !compiledScripts.accepts(engine)) {
+                return;
+            }
+            ScriptSource source = evaluator.getSource();
+            // compiled by a previous build of a Maven daemon
+            if (compiledScripts.contains(engine, source.getDigest())) {
+                return;
+            }
+            if (engine instanceof JavaEngine) {
+                javaSources
+                        .computeIfAbsent((JavaEngine) engine, key -> new LinkedHashMap<>())
+                        .put(source.getDigest(), source);
+            } else {
+                otherScriptEngines.add(engine);
+                otherSources.add(source);
+            }
+        } catch (UnsupportedScriptEngineException | ScriptException | UncheckedIOException e) {
+            log.debug("Skipping a script of " + project.getId() + " from the compilation in advance", e);
+        }
+    }
+
+    /**
+     * @param id identifies the compiled scripts in the logs
+     * @param minJavaScripts the minimum number of java scripts of an engine worth compiling them in advance
+     * @return the number of scripts compiled
+     */
+    int compile(String id, int minJavaScripts) {
+        int compiled = 0;
+        for (Map.Entry<JavaEngine, Map<String, ScriptSource>> java : javaSources.entrySet()) {
+            Map<String, ScriptSource> sources = java.getValue();
+            if (sources.size() < minJavaScripts) {
+                continue;
+            }
+            log.debug("Compiling " + sources.size() + " java scripts of " + id + " together");
+            try {
+                compiledScripts.putAll(java.getKey(), java.getKey().compileAll(sources.values()), log);
+                compiled += sources.size();
+            } catch (ScriptException e) {
+                log.debug("Compilation of the java scripts of " + id + " failed, they will be compiled one by one", e);
+            }
+        }
+        for (int i = 0; i < otherSources.size(); i++) {
+            try {
+                compiledScripts.compile(otherScriptEngines.get(i), otherSources.get(i), log);
+                compiled++;
+            } catch (ScriptException e) {
+                log.debug("Can't compile a script of " + id + " in advance", e);
+            }
+        }
+        return compiled;
+    }
+}
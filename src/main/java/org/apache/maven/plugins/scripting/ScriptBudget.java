@@ -0,0 +1,310 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Limits of the wall-clock time, thread CPU time and allocated bytes of each script of an execution. The usage of a
+ * script is measured on the thread evaluating it, so the work of the threads it starts is not counted. A script still
+ * running when the wall-clock budget is reached is interrupted.
+ */
+final class ScriptBudget {
+    /**
+     * No limit, only measures the scripts.
+     */
+    static final ScriptBudget UNLIMITED = new ScriptBudget(0, 0, 0, false);
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final long wallTimeMillis;
+
+    private final long cpuTimeMillis;
+
+    private final long allocatedBytes;
+
+    private final boolean fail;
+
+    /**
+     * @param wallTimeMillis the maximum wall-clock time of a script, zero or less for no limit
+     * @param cpuTimeMillis the maximum CPU time of a script, zero or less for no limit
+     * @param allocatedBytes the maximum bytes a script allocates, zero or less for no limit
+     * @param fail {@code true} to fail the build when a script exceeds its budget, {@code false} to only warn
+     */
+    ScriptBudget(long wallTimeMillis, long cpuTimeMillis, long allocatedBytes, boolean fail) {
+        this.wallTimeMillis = wallTimeMillis;
+        this.cpuTimeMillis = cpuTimeMillis;
+        this.allocatedBytes = allocatedBytes;
+        this.fail = fail;
+    }
+
+    /**
+     * @return {@code true} when a limit is set
+     */
+    boolean isLimited() {
+        return wallTimeMillis > 0 || cpuTimeMillis > 0 || allocatedBytes > 0;
+    }
+
+    /**
+     * @return {@code true} when the wall-clock time is limited
+     */
+    boolean hasTimeout() {
+        return wallTimeMillis > 0;
+    }
+
+    /**
+     * @return {@code true} when the CPU time or the allocated bytes are limited, which virtual threads can't measure
+     */
+    boolean needsPlatformThreads() {
+        return cpuTimeMillis > 0 || allocatedBytes > 0;
+    }
+
+    /**
+     * Starts measuring the current thread, and schedules its interruption when the wall-clock time is limited.
+     *
+     * @return the meter to stop once the script completed
+     */
+    Meter start() {
+        return new Meter(this);
+    }
+
+    /**
+     * Logs the usage of a script and reports the limits it exceeded.
+     *
+     * @param label the script name
+     * @param usage the usage of the script
+     * @param log where to log the usage
+     * @throws MojoFailureException if the script exceeded its budget and the build has to fail
+     */
+    void check(String label, Usage usage, Log log) throws MojoFailureException {
+        if (isLimited()) {
+            log.info("Script " + label + " used " + usage);
+        } else if (log.isDebugEnabled()) {
+            log.debug("Script " + label + " used " + usage);
+        }
+
+        StringBuilder exceeded = new StringBuilder();
+        if (wallTimeMillis > 0 && usage.getWallNanos() > TimeUnit.MILLISECONDS.toNanos(wallTimeMillis)) {
+            exceeded.append(", wall-clock time budget of ").append(wallTimeMillis).append(" ms");
+        }
+        if (cpuTimeMillis > 0 && usage.getCpuNanos() > TimeUnit.MILLISECONDS.toNanos(cpuTimeMillis)) {
+            exceeded.append(", CPU time budget of ").append(cpuTimeMillis).append(" ms");
+        }
+        if (allocatedBytes > 0 && usage.getAllocatedBytes() > allocatedBytes) {
+            exceeded.append(", allocation budget of ").append(allocatedBytes).append(" bytes");
+        }
+        if (exceeded.length() > 0) {
+            String message = "Script " + label + " exceeded its " + exceeded.substring(2) + " (" + usage + ")";
+            if (fail) {
+                throw new MojoFailureException(message);
+            }
+            log.warn(message);
+        }
+    }
+
+    /**
+     * Measures the evaluation of a script on the current thread.
+     */
+    static final class Meter implements Runnable {
+        private final Thread thread = Thread.currentThread();
+
+        private final long wallStart = System.nanoTime();
+
+        private final long cpuStart = cpuTime();
+
+        private final long allocatedStart = allocatedBytes();
+
+        private final ScheduledFuture<?> timeout;
+
+        private final long wallTimeMillis;
+
+        private boolean running = true;
+
+        private boolean armed;
+
+        private boolean timedOut;
+
+        private Meter(ScriptBudget budget) {
+            wallTimeMillis = budget.wallTimeMillis;
+            timeout = wallTimeMillis > 0
+                    ? Watchdog.EXECUTOR.schedule(this, wallTimeMillis, TimeUnit.MILLISECONDS)
+                    : null;
+        }
+
+        /**
+         * Interrupts the measured thread if the script body is being evaluated, else as soon as it starts.
+         */
+        @Override
+        public synchronized void run() {
+            if (running) {
+                timedOut = true;
+                if (armed) {
+                    thread.interrupt();
+                }
+            }
+        }
+
+        /**
+         * Allows the interruption of the thread while the script body is evaluated. The engine lookup and the
+         * compilation are not interrupted since shared resources, like the jars javac reads, are closed by an
+         * interruption.
+         */
+        synchronized void arm() {
+            armed = true;
+            if (timedOut) {
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * Defers the interruption of the thread to the next {@link #arm()}.
+         */
+        synchronized void disarm() {
+            armed = false;
+        }
+
+        /**
+         * @return {@code true} if the script was interrupted because it reached its wall-clock budget
+         */
+        synchronized boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * @return the wall-clock budget of the script, in milliseconds
+         */
+        long getWallTimeMillis() {
+            return wallTimeMillis;
+        }
+
+        /**
+         * Stops the measure, and clears the interruption of the thread when it was interrupted by the budget.
+         *
+         * @return the usage of the script
+         */
+        Usage stop() {
+            long wall = System.nanoTime() - wallStart;
+            long cpu = cpuTime();
+            long allocated = allocatedBytes();
+            if (timeout != null) {
+                timeout.cancel(false);
+                synchronized (this) {
+                    running = false;
+                    armed = false;
+                    if (timedOut) {
+                        Thread.interrupted();
+                    }
+                }
+            }
+            return new Usage(
+                    wall,
+                    cpuStart < 0 || cpu < 0 ? -1 : cpu - cpuStart,
+                    allocatedStart < 0 || allocated < 0 ? -1 : allocated - allocatedStart);
+        }
+
+        private static long cpuTime() {
+            try {
+                return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+            } catch (UnsupportedOperationException e) {
+                return -1;
+            }
+        }
+
+        private static long allocatedBytes() {
+            if (!(THREADS instanceof com.sun.management.ThreadMXBean)) {
+                return -1;
+            }
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            try {
+                return threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()
+                        ? threads.getThreadAllocatedBytes(Thread.currentThread().getId())
+                        : -1;
+            } catch (UnsupportedOperationException e) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * What a script consumed, negative values when the JVM can't measure them for the evaluating thread.
+     */
+    static final class Usage {
+        private final long wallNanos;
+
+        private final long cpuNanos;
+
+        private final long allocatedBytes;
+
+        Usage(long wallNanos, long cpuNanos, long allocatedBytes) {
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        long getWallNanos() {
+            return wallNanos;
+        }
+
+        long getCpuNanos() {
+            return cpuNanos;
+        }
+
+        long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    Locale.ROOT,
+                    "%.3f s wall-clock, %s CPU, %s allocated",
+                    wallNanos / 1e9,
+                    cpuNanos < 0 ? "unknown" : String.format(Locale.ROOT, "%.3f s", cpuNanos / 1e9),
+                    allocatedBytes < 0
+                            ? "unknown"
+                            : String.format(Locale.ROOT, "%.1f MB", allocatedBytes / (1024.0 * 1024.0)));
+        }
+    }
+
+    /**
+     * Lazily started daemon thread interrupting the scripts which reach their wall-clock budget.
+     */
+    private static final class Watchdog {
+        private static final ScheduledThreadPoolExecutor EXECUTOR = create();
+
+        private static ScheduledThreadPoolExecutor create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, task -> {
+                Thread thread = new Thread(task, "scripting-budget-watchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            // most scripts complete in time, don't keep their cancelled interruptions queued
+            executor.setRemoveOnCancelPolicy(true);
+            return executor;
+        }
+    }
+}
@@ -0,0 +1,322 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.PluginDescriptor;
+import org.apache.maven.plugins.scripting.engine.JavaEngine;
+import org.apache.maven.project.DefaultDependencyResolutionRequest;
+import org.apache.maven.project.DependencyResolutionException;
+import org.apache.maven.project.DependencyResolutionResult;
+import org.apache.maven.project.MavenProject;
+import org.apache.maven.project.ProjectDependenciesResolver;
+import org.eclipse.aether.graph.Dependency;
+
+/**
+ * Computes the classpath java scripts compile against, once per build session, or once per plugin realm when no
+ * dependency is selected: the jars of the Maven API exposed to scripts and this plugin, then the plugin or project
+ * dependencies and the jars of the distribution running the build selected by the execution. Unlike the JVM classpath,
+ * it stays stable so compiled scripts are reused from the persistent cache.
+ * The class loaders of the selected project dependencies are closed when the session ends.
+ */
+final class ScriptClasspath {
+    /**
+     * Classes identifying the Maven API jars scripts use, directly or through the signatures of the bound objects.
+     */
+    private static final String[] MAVEN_API = {
+        "org.apache.maven.project.MavenProject",
+        "org.apache.maven.plugin.logging.Log",
+        "org.apache.maven.model.Model",
+        "org.apache.maven.artifact.Artifact",
+        "org.apache.maven.execution.MavenSession",
+        "org.apache.maven.settings.Settings",
+        "org.eclipse.aether.RepositorySystemSession",
+        "org.codehaus.plexus.util.xml.Xpp3Dom"
+    };
+
+    /**
+     * Classpaths without selected dependencies, which only depend on the plugin realm, kept across sessions.
+     */
+    private static final BoundedCache<ClassLoader, ScriptClasspath> REALM_CLASSPATHS = new BoundedCache<>(16);
+
+    private final List<File> entries;
+
+    private final ClassLoader loader;
+
+    private final String key;
+
+    private ScriptClasspath(List<File> entries, ClassLoader loader) {
+        this.entries = entries;
+        this.loader = loader;
+        Fingerprint fingerprint = new Fingerprint();
+        for (File entry : entries) {
+            fingerprint.add(entry.getAbsolutePath())
+                    .add(Long.toString(entry.length()))
+                    .add(Long.toString(entry.lastModified()));
+        }
+        this.key = fingerprint.toHex();
+    }
+
+    /**
+     * @param session the current session
+     * @param project the project of the execution
+     * @param pluginDescriptor the descriptor of this plugin, its realm loads the scripts
+     * @param dependencies the selected dependencies as <code>groupId:artifactId</code>, <code>*</code> matching any
+     * @param resolver resolves the project dependencies when some are selected
+     * @return the classpath of the execution
+     * @throws MojoExecutionException if the selected project dependencies can't be resolved
+     */
+    static ScriptClasspath of(
+            MavenSession session,
+            MavenProject project,
+            PluginDescriptor pluginDescriptor,
+            List<String> dependencies,
+            ProjectDependenciesResolver resolver)
+            throws MojoExecutionException {
+        List<String> patterns = dependencies != null ? dependencies : Collections.emptyList();
+        ClassLoader realm = pluginDescriptor.getClassRealm() != null
+                ? pluginDescriptor.getClassRealm()
+                : ScriptClasspath.class.getClassLoader();
+        if (patterns.isEmpty()) {
+            return of(realm);
+        }
+
+        List<Object> key = Arrays.asList(realm, patterns, project.getId());
+        Map<List<Object>, ScriptClasspath> classpaths =
+                SessionScope.get(session, Cache.class, Cache.class, Cache::new).classpaths;
+        ScriptClasspath classpath = classpaths.get(key);
+        if (classpath == null) {
+            classpath = create(session, project, pluginDescriptor, realm, patterns, resolver);
+            ScriptClasspath existing = classpaths.putIfAbsent(key, classpath);
+            if (existing != null) {
+                classpath.close();
+                classpath = existing;
+            } else if (classpath.loader != null) {
+                SessionEnd.register(session, SessionEnd.Stage.CLOSE, classpath::close);
+            }
+        }
+        return classpath;
+    }
+
+    /**
+     * @param realm the plugin realm
+     * @return the classpath of the executions which don't select dependencies, it only depends on the plugin realm
+     */
+    static ScriptClasspath of(ClassLoader realm) {
+        ScriptClasspath classpath = REALM_CLASSPATHS.get(realm);
+        if (classpath == null) {
+            classpath = new ScriptClasspath(existing(apiEntries(realm)), null);
+            ScriptClasspath existing = REALM_CLASSPATHS.putIfAbsent(realm, classpath);
+            if (existing != null) {
+                classpath = existing;
+            }
+        }
+        return classpath;
+    }
+
+    /**
+     * @return the classpath entries, without duplicates nor missing files
+     */
+    List<File> getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return identifies the entries and their content, as size and last modification
+     */
+    String getKey() {
+        return key;
+    }
+
+    /**
+     * @return the loader of the selected project dependencies, child of the plugin realm, {@code null} if none
+     */
+    ClassLoader getLoader() {
+        return loader;
+    }
+
+    private void close() {
+        if (loader instanceof URLClassLoader) {
+            CompiledScriptCache.forget(loader);
+            ScriptEngineFactoryIndex.forget(loader);
+            try {
+                ((URLClassLoader) loader).close();
+            } catch (IOException e) {
+                // the jars are released by the garbage collector
+            }
+        }
+    }
+
+    private static ScriptClasspath create(
+            MavenSession session,
+            MavenProject project,
+            PluginDescriptor pluginDescriptor,
+            ClassLoader realm,
+            List<String> patterns,
+            ProjectDependenciesResolver resolver)
+            throws MojoExecutionException {
+        Set<File> entries = apiEntries(realm);
+        if (pluginDescriptor.getArtifacts() != null) {
+            for (Artifact artifact : pluginDescriptor.getArtifacts()) {
+                if (artifact.getFile() != null && matches(patterns, artifact.getGroupId(), artifact.getArtifactId())) {
+                    entries.add(artifact.getFile());
+                }
+            }
+        }
+
+        List<URL> projectUrls = new ArrayList<>();
+        DefaultDependencyResolutionRequest request =
+                new DefaultDependencyResolutionRequest(project, session.getRepositorySession());
+        request.setResolutionFilter((node, parents) -> node.getArtifact() != null
+                && matches(
+                        patterns,
+                        node.getArtifact().getGroupId(),
+                        node.getArtifact().getArtifactId()));
+        try {
+            DependencyResolutionResult result = resolver.resolve(request);
+            for (Dependency dependency : result.getResolvedDependencies()) {
+                File file = dependency.getArtifact().getFile();
+                if (file != null && entries.add(file)) {
+                    projectUrls.add(file.toURI().toURL());
+                }
+            }
+        } catch (DependencyResolutionException e) {
+            throw new MojoExecutionException("Can't resolve the script dependencies of " + project.getId(), e);
+        } catch (MalformedURLException e) {
+            throw new IllegalStateException(e);
+        }
+        entries.addAll(distributionEntries(patterns));
+        ClassLoader loader =
+                projectUrls.isEmpty() ? null : new URLClassLoader(projectUrls.toArray(new URL[0]), realm);
+        return new ScriptClasspath(existing(entries), loader);
+    }
+
+    /**
+     * @return the jars of the Maven API exposed to scripts and of this plugin
+     */
+    private static Set<File> apiEntries(ClassLoader realm) {
+        Set<File> entries = new LinkedHashSet<>();
+        for (String api : MAVEN_API) {
+            try {
+                addLocation(entries, Class.forName(api, false, realm));
+            } catch (ClassNotFoundException | LinkageError e) {
+                // not exposed by this Maven version
+            }
+        }
+        addLocation(entries, JavaEngine.class);
+        return entries;
+    }
+
+    /**
+     * @param patterns the selected dependencies
+     * @return the selected jars of the distribution running the build, identified by their Maven metadata, sorted so
+     *     the classpath is stable
+     */
+    private static List<File> distributionEntries(List<String> patterns) {
+        String home = System.getProperty("maven.home");
+        File[] jars = home == null ? null : new File(home, "lib").listFiles((dir, name) -> name.endsWith(".jar"));
+        if (jars == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(jars);
+        List<File> selected = new ArrayList<>();
+        for (File jar : jars) {
+            try (JarFile file = new JarFile(jar)) {
+                Enumeration<JarEntry> jarEntries = file.entries();
+                while (jarEntries.hasMoreElements()) {
+                    // META-INF/maven/<groupId>/<artifactId>/pom.properties
+                    String[] path = jarEntries.nextElement().getName().split("/");
+                    if (path.length == 5
+                            && "META-INF".equals(path[0])
+                            && "maven".equals(path[1])
+                            && "pom.properties".equals(path[4])) {
+                        if (matches(patterns, path[2], path[3])) {
+                            selected.add(jar);
+                        }
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                // not a jar the scripts can compile against
+            }
+        }
+        return selected;
+    }
+
+    private static void addLocation(Set<File> entries, Class<?> type) {
+        CodeSource codeSource = type.getProtectionDomain().getCodeSource();
+        if (codeSource != null && codeSource.getLocation() != null) {
+            try {
+                entries.add(new File(codeSource.getLocation().toURI()));
+            } catch (URISyntaxException | IllegalArgumentException e) {
+                // not a file
+            }
+        }
+    }
+
+    private static List<File> existing(Set<File> entries) {
+        List<File> existing = new ArrayList<>(entries.size());
+        for (File entry : entries) {
+            if (entry.exists()) {
+                existing.add(entry);
+            }
+        }
+        return Collections.unmodifiableList(existing);
+    }
+
+    private static boolean matches(List<String> patterns, String groupId, String artifactId) {
+        for (String pattern : patterns) {
+            int separator = pattern.indexOf(':');
+            String group = separator < 0 ? pattern : pattern.substring(0, separator);
+            String artifact = separator < 0 ? "*" : pattern.substring(separator + 1);
+            if (("*".equals(group) || group.equals(groupId)) && ("*".equals(artifact) || artifact.equals(artifactId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The classpaths of the session, by plugin realm and selected dependencies.
+     */
+    private static final class Cache {
+        private final Map<List<Object>, ScriptClasspath> classpaths = new ConcurrentHashMap<>();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.ScriptEngineFactory;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+
+/**
+ * Indexes the {@link ScriptEngineFactory} visible from a class loader by name, extension and MIME type.
+ * Unlike {@link javax.script.ScriptEngineManager} which scans the class path each time it is created, the index is
+ * computed once per class loader and reused by all the executions of the build sessions.
+ */
+public final class ScriptEngineFactoryIndex {
+    /**
+     * Held by the plugin realm, so cached indexes share its lifecycle, across the builds of a Maven daemon.
+     * Bounded and weakly keyed since executions using project dependencies get a new child loader in each build.
+     */
+    private static final BoundedCache<WeakIdentityKey<ClassLoader>, ScriptEngineFactoryIndex> INDEXES =
+            new BoundedCache<>(16);
+
+    private final Map<String, ScriptEngineFactory> byName = new HashMap<>();
+
+    private final Map<String, ScriptEngineFactory> byExtension = new HashMap<>();
+
+    private final Map<String, ScriptEngineFactory> byMimeType = new HashMap<>();
+
+    private ScriptEngineFactoryIndex(ClassLoader loader) {
+        Iterator<ScriptEngineFactory> factories =
+                ServiceLoader.load(ScriptEngineFactory.class, loader).iterator();
+        try {
+            while (factories.hasNext()) {
+                ScriptEngineFactory factory;
+                try {
+                    factory = factories.next();
+                } catch (ServiceConfigurationError e) {
+                    // same as ScriptEngineManager: a broken factory must not hide the other ones
+                    continue;
+                }
+                // first registered wins, as with ScriptEngineManager
+                factory.getNames().forEach(name -> byName.putIfAbsent(name, factory));
+                factory.getExtensions().forEach(extension -> byExtension.putIfAbsent(extension, factory));
+                factory.getMimeTypes().forEach(mimeType -> byMimeType.putIfAbsent(mimeType, factory));
+            }
+        } catch (ServiceConfigurationError e) {
+            // the service descriptors can't be read anymore, keep what was found so far
+        }
+    }
+
+    /**
+     * @param loader the class loader to discover factories from, the system one if null
+     * @return the index of the factories visible from this loader
+     */
+    public static ScriptEngineFactoryIndex of(ClassLoader loader) {
+        ClassLoader indexed = loader != null ? loader : ClassLoader.getSystemClassLoader();
+        return INDEXES.computeIfAbsent(new WeakIdentityKey<>(indexed), key -> new ScriptEngineFactoryIndex(indexed));
+    }
+
+    /**
+     * Drops the index of a class loader being closed.
+     *
+     * @param loader the class loader
+     */
+    static void forget(ClassLoader loader) {
+        INDEXES.removeKeys(key -> key.get() == loader || key.get() == null);
+    }
+
+    /**
+     * @param name the engine name
+     * @return the factory of this name, or null if none
+     */
+    public ScriptEngineFactory getByName(String name) {
+        return byName.get(name);
+    }
+
+    /**
+     * @param extension the script file extension, without the dot
+     * @return the factory handling this extension, or null if none
+     */
+    public ScriptEngineFactory getByExtension(String extension) {
+        return byExtension.get(extension);
+    }
+
+    /**
+     * @param mimeType the script MIME type
+     * @return the factory handling this MIME type, or null if none
+     */
+    public ScriptEngineFactory getByMimeType(String mimeType) {
+        return byMimeType.get(mimeType);
+    }
+}
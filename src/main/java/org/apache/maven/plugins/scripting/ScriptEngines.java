@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.Bindings;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.SimpleScriptContext;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugins.scripting.engine.ContextAwareEngine;
+
+/**
+ * Provides the engines of an execution, one per engine factory so the successive scripts of a language run on the
+ * same warm engine.
+ * When scripts run concurrently, engines are only shared if their factory declares a {@code THREADING} parameter,
+ * otherwise each script gets its own engine instance.
+ */
+final class ScriptEngines {
+    private final Map<ScriptEngineFactory, ScriptEngine> engines = new HashMap<>();
+
+    private final Log log;
+
+    private final File cacheDirectory;
+
+    private final List<File> classpath;
+
+    private final boolean concurrent;
+
+    /**
+     * @param log engine logger if context aware
+     * @param cacheDirectory possibly null directory where context aware engines can cache compilation outputs
+     * @param classpath possibly null classpath context aware engines compile scripts against
+     * @param concurrent whether the engines are used by concurrent scripts
+     */
+    ScriptEngines(Log log, File cacheDirectory, List<File> classpath, boolean concurrent) {
+        this.log = log;
+        this.cacheDirectory = cacheDirectory;
+        this.classpath = classpath;
+        this.concurrent = concurrent;
+    }
+
+    /**
+     * @param factory the factory of the engine
+     * @return the engine of this execution created by this factory, configured if context aware
+     */
+    ScriptEngine get(ScriptEngineFactory factory) {
+        if (!concurrent) {
+            return engines.computeIfAbsent(factory, this::create);
+        }
+        // per JSR223 a null THREADING parameter means the engine is not thread safe
+        if (factory.getParameter("THREADING") == null) {
+            return create(factory);
+        }
+        synchronized (engines) {
+            return engines.computeIfAbsent(factory, this::create);
+        }
+    }
+
+    /**
+     * @param engine an engine of this execution
+     * @param bindings the global bindings of the script
+     * @return the context to evaluate a script with, the engine one unless scripts are concurrent
+     */
+    ScriptContext createContext(ScriptEngine engine, Bindings bindings) {
+        ScriptContext context;
+        if (concurrent) {
+            context = new SimpleScriptContext();
+            context.setBindings(engine.createBindings(), ScriptContext.ENGINE_SCOPE);
+        } else {
+            context = engine.getContext();
+        }
+        context.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
+        return context;
+    }
+
+    /**
+     * @param factory the factory of the engine
+     * @return a new engine, configured if context aware
+     */
+    ScriptEngine create(ScriptEngineFactory factory) {
+        ScriptEngine engine = factory.getScriptEngine();
+        if (engine instanceof ContextAwareEngine) {
+            ContextAwareEngine contextAware = (ContextAwareEngine) engine;
+            contextAware.setLog(log);
+            contextAware.setCacheDirectory(cacheDirectory != null ? cacheDirectory.toPath() : null);
+            contextAware.setClasspath(classpath);
+        }
+        return engine;
+    }
+
+    Log getLog() {
+        return log;
+    }
+}
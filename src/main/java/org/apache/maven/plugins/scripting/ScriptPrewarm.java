@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Prepares the scripts of the build in the background as soon as its projects are read, while Maven resolves the
+ * dependencies of the first modules: indexes the engine factories of the plugin realm and compiles the java and other
+ * {@link javax.script.Compilable} scripts configured in each module into the {@link CompiledScriptCache}, see
+ * {@link ScriptBatch}. The java scripts of a module are compiled with a single javac task. Nothing is written to the
+ * cache directories of the executions, which the <code>clean</code> of the modules may be deleting meanwhile.
+ * The modules are prepared one after another in the reactor order. An execution waits for the scripts of its module
+ * while they are being prepared, up to a timeout, and takes over its module when its preparation did not start yet, so
+ * it never waits for other modules. Only the executions compiling against the plugin realm benefit from it: the ones
+ * selecting <code>classpathDependencies</code> compile against another classpath. A script which fails to be prepared
+ * is compiled by its execution, which reports the error.
+ */
+final class ScriptPrewarm {
+    /**
+     * How long an execution waits for the scripts of its module to be prepared before compiling them itself.
+     */
+    static final long AWAIT_TIMEOUT_SECONDS = 60;
+
+    private final Map<String, Module> modules = new ConcurrentHashMap<>();
+
+    /**
+     * @param session the current session
+     * @return the preparation of the scripts of the build
+     */
+    static ScriptPrewarm of(MavenSession session) {
+        return SessionScope.get(session, ScriptPrewarm.class, ScriptPrewarm.class, ScriptPrewarm::new);
+    }
+
+    /**
+     * Starts preparing the scripts of the projects on a daemon thread, in the reactor order.
+     *
+     * @param session the current session
+     * @param pluginKey the <code>groupId:artifactId</code> of this plugin
+     * @param realm the plugin realm, loading the engines and the compiled scripts
+     * @param log where to report the preparation
+     */
+    void start(MavenSession session, String pluginKey, ClassLoader realm, Log log) {
+        List<MavenProject> projects = session.getProjects();
+        for (MavenProject project : projects) {
+            modules.putIfAbsent(project.getId(), new Module());
+        }
+        if (!projects.isEmpty()) {
+            // no execution runs yet, the first module is always prepared in the background
+            modules.get(projects.get(0).getId()).claimed.set(true);
+        }
+        Thread thread = new Thread(() -> prepare(session, projects, pluginKey, realm, log), "scripting-prewarm");
+        thread.setDaemon(true);
+        thread.setContextClassLoader(realm);
+        thread.start();
+    }
+
+    /**
+     * Waits for the scripts of a module being prepared. Returns immediately if they are not being prepared or if
+     * their preparation did not start yet, in which case the background thread skips the module. The wait is bounded:
+     * if the preparation is late, the execution compiles its scripts itself.
+     *
+     * @param module the identifier of the module
+     * @param log where to report the wait
+     */
+    void await(String module, Log log) {
+        Module preparation = modules.get(module);
+        if (preparation == null) {
+            return;
+        }
+        if (preparation.claimed.compareAndSet(false, true)) {
+            // taken over by its execution, the next ones don't wait either
+            preparation.prepared.countDown();
+            return;
+        }
+        if (preparation.prepared.getCount() == 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            if (preparation.prepared.await(AWAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                log.debug("Waited " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+                        + " ms for the scripts of " + module + " to be prepared");
+            } else {
+                log.debug("The scripts of " + module + " are still being prepared after " + AWAIT_TIMEOUT_SECONDS
+                        + " s, compiling them in the module");
+            }
+        } catch (InterruptedException e) {
+            // the scripts are compiled by their execution then
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void prepare(
+            MavenSession session, List<MavenProject> projects, String pluginKey, ClassLoader realm, Log log) {
+        long start = System.nanoTime();
+        int prepared = 0;
+        try {
+            ScriptEngineFactoryIndex index = ScriptEngineFactoryIndex.of(realm);
+            ScriptClasspath classpath = ScriptClasspath.of(realm);
+            CompiledScriptCache compiledScripts = CompiledScriptCache.of(session, classpath.getKey());
+            ScriptResources resources = ScriptResources.of(session);
+            // without cache directory: the executions write their own
+            ScriptEngines engines = new ScriptEngines(log, null, classpath.getEntries(), false);
+            for (int i = 0; i < projects.size(); i++) {
+                MavenProject project = projects.get(i);
+                Module module = modules.get(project.getId());
+                if (i > 0 && !module.claimed.compareAndSet(false, true)) {
+                    continue; // taken over by its execution
+                }
+                try {
+                    ScriptBatch batch = new ScriptBatch(index, compiledScripts, resources, true, log);
+                    for (ConfiguredScripts.Configuration configuration :
+                            ConfiguredScripts.configurations(project, pluginKey)) {
+                        Charset charset;
+                        try {
+                            charset = EvalMojo.toCharset(encoding(session, project, configuration));
+                        } catch (MojoExecutionException e) {
+                            continue; // reported by the execution
+                        }
+                        for (Script script : configuration.getScripts()) {
+                            batch.add(project, script, engines, charset);
+                        }
+                    }
+                    prepared += batch.compile(project.getId(), 1);
+                } catch (RuntimeException | LinkageError e) {
+                    log.debug("Can't prepare the scripts of " + project.getId(), e);
+                } finally {
+                    module.prepared.countDown();
+                }
+            }
+            log.debug("Prepared " + prepared + " scripts in the background in "
+                    + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        } finally {
+            // never leave an execution waiting
+            modules.values().forEach(module -> module.prepared.countDown());
+        }
+    }
+
+    /**
+     * @return the <code>encoding</code> of the execution: configured, else set as property, else its default value
+     */
+    private static String encoding(
+            MavenSession session, MavenProject project, ConfiguredScripts.Configuration configuration) {
+        if (configuration.getEncoding() != null) {
+            return configuration.getEncoding();
+        }
+        String encoding = session.getUserProperties()
+                .getProperty("scripting.encoding", session.getSystemProperties().getProperty("scripting.encoding"));
+        return encoding != null ? encoding : project.getProperties().getProperty("project.build.sourceEncoding");
+    }
+
+    /**
+     * The preparation of a module, claimed either by the background thread or by the first execution of the module.
+     */
+    private static final class Module {
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private final CountDownLatch prepared = new CountDownLatch(1);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.ScriptException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+
+/**
+ * Script resources read from the plugin dependencies, shared by all the executions of the session so the class loader
+ * is searched once per resource name and each jar entry is inflated and decoded once.
+ */
+final class ScriptResources {
+    /**
+     * Resource mapping the script resources compiled by the <code>precompile</code> goal to their class.
+     */
+    static final String PRECOMPILED_INDEX = "META-INF/maven-scripting/precompiled.properties";
+
+    /**
+     * Resource URLs by class loader and resource name.
+     */
+    private final Map<List<Object>, URL> locations = new ConcurrentHashMap<>();
+
+    /**
+     * Resource contents by URL, which identifies the jar and the entry, and charset.
+     */
+    private final Map<List<Object>, ScriptSource> contents = new ConcurrentHashMap<>();
+
+    /**
+     * Precompiled script classes by class loader and resource name.
+     */
+    private final Map<ClassLoader, Map<String, String>> precompiled = new ConcurrentHashMap<>();
+
+    /**
+     * @param session the current session
+     * @return the script resources of the session
+     */
+    static ScriptResources of(MavenSession session) {
+        return SessionScope.get(session, ScriptResources.class, ScriptResources.class, ScriptResources::new);
+    }
+
+    /**
+     * @param loader the class loader to find the resource with
+     * @param name the resource name
+     * @param charset the resource encoding
+     * @return the content of the resource
+     * @throws ScriptException if no dependency has the resource
+     * @throws UncheckedIOException if the resource can't be read
+     */
+    ScriptSource get(ClassLoader loader, String name, Charset charset) throws ScriptException {
+        URL url = locate(loader, name);
+        return contents.computeIfAbsent(Arrays.asList(url.toExternalForm(), charset), key -> read(name, url, charset));
+    }
+
+    /**
+     * @param loader the class loader to find the resource with
+     * @param name the resource name
+     * @return the class of the precompiled resource or {@code null} if it is not precompiled
+     * @throws UncheckedIOException if an index can't be read
+     */
+    String getPrecompiledClass(ClassLoader loader, String name) {
+        return precompiled.computeIfAbsent(loader, ScriptResources::readIndexes).get(name);
+    }
+
+    /**
+     * @return the merged indexes of the loader, the first one listing a resource wins like for the resources
+     */
+    private static Map<String, String> readIndexes(ClassLoader loader) {
+        Map<String, String> classes = new HashMap<>();
+        try {
+            Enumeration<URL> indexes = loader.getResources(PRECOMPILED_INDEX);
+            while (indexes.hasMoreElements()) {
+                URLConnection connection = indexes.nextElement().openConnection();
+                connection.setUseCaches(false);
+                Properties index = new Properties();
+                try (InputStream is = connection.getInputStream()) {
+                    index.load(is);
+                }
+                for (String name : index.stringPropertyNames()) {
+                    classes.putIfAbsent(name, index.getProperty(name));
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(PRECOMPILED_INDEX + " caused:", ex);
+        }
+        return classes;
+    }
+
+    private URL locate(ClassLoader loader, String name) throws ScriptException {
+        List<Object> key = Arrays.asList(loader, name);
+        URL url = locations.get(key);
+        if (url == null) {
+            url = loader.getResource(name);
+            if (url == null) {
+                throw new ScriptException("Script resource '" + name
+                        + "' not found, add the artifact containing it as a dependency of the plugin");
+            }
+            locations.put(key, url);
+        }
+        return url;
+    }
+
+    private static ScriptSource read(String name, URL url, Charset charset) {
+        try {
+            URLConnection connection = url.openConnection();
+            // the content is cached here, don't keep the jar open in the JVM wide cache of the jar connections
+            connection.setUseCaches(false);
+            try (InputStream is = connection.getInputStream()) {
+                return ScriptSource.read(is, charset);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(name + " caused:", ex);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.ExecutionListener;
+import org.apache.maven.execution.MavenExecutionRequest;
+import org.apache.maven.execution.MavenSession;
+
+/**
+ * Runs actions once all the projects of a session are built, before Maven reports the result of the build. Maven only
+ * notifies the lifecycle participants of build extensions of the end of a session, so the execution listener of the
+ * session is wrapped instead, which works whether the plugin is an extension or not.
+ * Actions run stage after stage, in the order of their registration, and the exceptions they throw fail the build.
+ */
+final class SessionEnd implements ExecutionListener {
+    /**
+     * When an action runs: all the actions of a stage run before the ones of the next stage.
+     */
+    enum Stage {
+        /**
+         * Waits for the work still running in the background.
+         */
+        AWAIT,
+        /**
+         * Reports on the work done by the build.
+         */
+        REPORT,
+        /**
+         * Releases the resources used by the build.
+         */
+        CLOSE
+    }
+
+    /**
+     * An action run at the end of the session.
+     */
+    interface Action {
+        /**
+         * @throws Exception to fail the build
+         */
+        void run() throws Exception;
+    }
+
+    private final Map<Stage, List<Action>> actions = new EnumMap<>(Stage.class);
+
+    private ExecutionListener delegate;
+
+    private boolean installed;
+
+    private boolean ended;
+
+    /**
+     * @param session the current session
+     * @param stage when to run the action
+     * @param action the action to run once the session ended
+     */
+    static void register(MavenSession session, Stage stage, Action action) {
+        SessionScope.get(session, SessionEnd.class, SessionEnd.class, SessionEnd::new)
+                .add(session.getRequest(), stage, action);
+    }
+
+    private synchronized void add(MavenExecutionRequest request, Stage stage, Action action) {
+        if (!installed) {
+            // module sessions of a parallel build share the request
+            synchronized (request) {
+                delegate = request.getExecutionListener();
+                request.setExecutionListener(this);
+            }
+            installed = true;
+        }
+        actions.computeIfAbsent(stage, key -> new ArrayList<>()).add(action);
+    }
+
+    @Override
+    public void sessionEnded(ExecutionEvent event) {
+        List<Action> pending;
+        synchronized (this) {
+            if (ended) {
+                return;
+            }
+            ended = true;
+            pending = new ArrayList<>();
+            actions.values().forEach(pending::addAll);
+        }
+        for (Action action : pending) {
+            try {
+                action.run();
+            } catch (Exception e) {
+                event.getSession().getResult().addException(e);
+            }
+        }
+        if (delegate != null) {
+            delegate.sessionEnded(event);
+        }
+    }
+
+    @Override
+    public void projectDiscoveryStarted(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.projectDiscoveryStarted(event);
+        }
+    }
+
+    @Override
+    public void sessionStarted(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.sessionStarted(event);
+        }
+    }
+
+    @Override
+    public void projectSkipped(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.projectSkipped(event);
+        }
+    }
+
+    @Override
+    public void projectStarted(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.projectStarted(event);
+        }
+    }
+
+    @Override
+    public void projectSucceeded(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.projectSucceeded(event);
+        }
+    }
+
+    @Override
+    public void projectFailed(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.projectFailed(event);
+        }
+    }
+
+    @Override
+    public void mojoSkipped(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.mojoSkipped(event);
+        }
+    }
+
+    @Override
+    public void mojoStarted(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.mojoStarted(event);
+        }
+    }
+
+    @Override
+    public void mojoSucceeded(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.mojoSucceeded(event);
+        }
+    }
+
+    @Override
+    public void mojoFailed(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.mojoFailed(event);
+        }
+    }
+
+    @Override
+    public void forkStarted(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.forkStarted(event);
+        }
+    }
+
+    @Override
+    public void forkSucceeded(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.forkSucceeded(event);
+        }
+    }
+
+    @Override
+    public void forkFailed(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.forkFailed(event);
+        }
+    }
+
+    @Override
+    public void forkedProjectStarted(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.forkedProjectStarted(event);
+        }
+    }
+
+    @Override
+    public void forkedProjectSucceeded(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.forkedProjectSucceeded(event);
+        }
+    }
+
+    @Override
+    public void forkedProjectFailed(ExecutionEvent event) {
+        if (delegate != null) {
+            delegate.forkedProjectFailed(event);
+        }
+    }
+}
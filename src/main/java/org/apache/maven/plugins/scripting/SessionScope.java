@@ -0,0 +1,55 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.function.Supplier;
+
+import org.apache.maven.execution.MavenSession;
+import org.eclipse.aether.SessionData;
+
+/**
+ * Holds state shared by all the executions of a build session, whatever the module or the thread running them.
+ * Values are stored in the repository session data so they are released with the session.
+ */
+final class SessionScope {
+    private SessionScope() {
+        // utility
+    }
+
+    /**
+     * @param session the current session
+     * @param key the value key, use a class of this plugin so values are isolated per plugin realm
+     * @param type the value type
+     * @param factory creates the value when the session does not have it yet, can be called concurrently
+     * @param <T> the value type
+     * @return the value of the session, the first created one if several threads raced
+     */
+    static <T> T get(MavenSession session, Object key, Class<T> type, Supplier<T> factory) {
+        SessionData data = session.getRepositorySession().getData();
+        Object value = data.get(key);
+        while (value == null) {
+            T created = factory.get();
+            if (data.set(key, null, created)) {
+                return created;
+            }
+            value = data.get(key);
+        }
+        return type.cast(value);
+    }
+}
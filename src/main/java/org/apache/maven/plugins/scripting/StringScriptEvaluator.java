@@ -20,9 +20,11 @@ package org.apache.maven.plugins.scripting;
 
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
+import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+
 /**
  * Evaluates a script held in a string.
  *
@@ -58,12 +60,13 @@ public class StringScriptEvaluator extends AbstractScriptEvaluator {
     }
 
     /**
-     * @param manager the script engine manager
+     * @param index the script engine factory index
      * @throws UnsupportedScriptEngineException if the engineName is not supported
-     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngine(javax.script.ScriptEngineManager)
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getEngineFactory(ScriptEngineFactoryIndex)
      */
-    protected ScriptEngine getEngine(ScriptEngineManager manager) throws UnsupportedScriptEngineException {
-        ScriptEngine result = manager.getEngineByName(engineName);
+    protected ScriptEngineFactory getEngineFactory(ScriptEngineFactoryIndex index)
+            throws UnsupportedScriptEngineException {
+        ScriptEngineFactory result = index.getByName(engineName);
 
         if (result == null) {
             throw new UnsupportedScriptEngineException("Unknown engine specified with name \"" + engineName + "\"");
@@ -71,6 +74,14 @@ public class StringScriptEvaluator extends AbstractScriptEvaluator {
         return result;
     }
 
+    /**
+     * @return the script
+     * @see org.apache.maven.plugins.scripting.AbstractScriptEvaluator#getSource()
+     */
+    protected ScriptSource getSource() {
+        return ScriptSource.of(script);
+    }
+
     /**
      * @param engine the script engine
      * @param context the script context
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.scripting.engine.PhaseTimings;
+
+/**
+ * Collects the phase timings of the script evaluations of the build and writes them as JSON, per execution and, once
+ * the session ended, for the whole reactor. Durations are in milliseconds, scripts and modules are sorted slowest
+ * first.
+ */
+final class TimingReport {
+    private final List<ScriptTiming> scripts = new ArrayList<>();
+
+    private Path reactorReport;
+
+    /**
+     * @param session the current session
+     * @param reactorReport where to write the report of the reactor once the session ended
+     * @return the report of the build
+     */
+    static TimingReport of(MavenSession session, Path reactorReport) {
+        TimingReport report = SessionScope.get(session, TimingReport.class, TimingReport.class, TimingReport::new);
+        synchronized (report.scripts) {
+            if (report.reactorReport == null) {
+                report.reactorReport = reactorReport;
+                SessionEnd.register(session, SessionEnd.Stage.REPORT, report::writeReactor);
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Writes the report of an execution and adds its scripts to the reactor report.
+     *
+     * @param module the module identifier
+     * @param execution the execution identifier
+     * @param labels the script labels
+     * @param timings the timings of the scripts, in the order of the labels
+     * @param usages the CPU time and allocations of the scripts, in the order of the labels
+     * @param executionReport where to write the report of the execution
+     * @throws IOException if the report can't be written
+     */
+    void add(
+            String module,
+            String execution,
+            List<String> labels,
+            List<PhaseTimings> timings,
+            List<ScriptBudget.Usage> usages,
+            Path executionReport)
+            throws IOException {
+        List<ScriptTiming> executionScripts = new ArrayList<>(labels.size());
+        for (int i = 0; i < labels.size(); i++) {
+            executionScripts.add(new ScriptTiming(module, execution, labels.get(i), timings.get(i), usages.get(i)));
+        }
+        write(executionReport, executionJson(module, execution, executionScripts));
+
+        synchronized (scripts) {
+            scripts.addAll(executionScripts);
+        }
+    }
+
+    private void writeReactor() throws MojoExecutionException {
+        try {
+            synchronized (scripts) {
+                write(reactorReport, reactorJson(scripts));
+            }
+        } catch (IOException e) {
+            throw new MojoExecutionException("Can't write the script timings", e);
+        }
+    }
+
+    private static String executionJson(String module, String execution, List<ScriptTiming> scripts) {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"module\": ").append(quote(module)).append(",\n");
+        json.append("  \"execution\": ").append(quote(execution)).append(",\n");
+        json.append("  \"totalMillis\": ").append(millis(total(scripts))).append(",\n");
+        appendScripts(json, scripts, false);
+        return json.append("}\n").toString();
+    }
+
+    private static String reactorJson(List<ScriptTiming> scripts) {
+        Map<String, long[]> modules = new LinkedHashMap<>(); // total nanos, script count
+        for (ScriptTiming script : scripts) {
+            long[] module = modules.computeIfAbsent(script.module, key -> new long[2]);
+            module[0] += script.total();
+            module[1]++;
+        }
+        List<Map.Entry<String, long[]>> sortedModules = new ArrayList<>(modules.entrySet());
+        sortedModules.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0])
+                .reversed());
+
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"totalMillis\": ").append(millis(total(scripts))).append(",\n");
+        json.append("  \"modules\": [");
+        for (int i = 0; i < sortedModules.size(); i++) {
+            Map.Entry<String, long[]> module = sortedModules.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"module\": ")
+                    .append(quote(module.getKey()))
+                    .append(", \"totalMillis\": ")
+                    .append(millis(module.getValue()[0]))
+                    .append(", \"scripts\": ")
+                    .append(module.getValue()[1])
+                    .append('}');
+        }
+        json.append(sortedModules.isEmpty() ? "],\n" : "\n  ],\n");
+        appendScripts(json, scripts, true);
+        return json.append("}\n").toString();
+    }
+
+    private static void appendScripts(StringBuilder json, List<ScriptTiming> scripts, boolean withModule) {
+        List<ScriptTiming> sorted = new ArrayList<>(scripts);
+        sorted.sort(Comparator.comparingLong(ScriptTiming::total).reversed());
+
+        json.append("  \"scripts\": [");
+        for (int i = 0; i < sorted.size(); i++) {
+            ScriptTiming script = sorted.get(i);
+            json.append(i == 0 ? "\n" : ",\n").append("    {");
+            if (withModule) {
+                json.append("\"module\": ")
+                        .append(quote(script.module))
+                        .append(", \"execution\": ")
+                        .append(quote(script.execution))
+                        .append(", ");
+            }
+            json.append("\"script\": ").append(quote(script.label));
+            if (script.usage != null && script.usage.getCpuNanos() >= 0) {
+                json.append(", \"cpuMillis\": ").append(millis(script.usage.getCpuNanos()));
+            }
+            if (script.usage != null && script.usage.getAllocatedBytes() >= 0) {
+                json.append(", \"allocatedBytes\": ").append(script.usage.getAllocatedBytes());
+            }
+            json.append(", \"phases\": {");
+            boolean first = true;
+            for (Map.Entry<String, Long> phase : script.timings.getPhases().entrySet()) {
+                json.append(first ? "" : ", ")
+                        .append(quote(phase.getKey()))
+                        .append(": ")
+                        .append(millis(phase.getValue()));
+                first = false;
+            }
+            json.append("}}");
+        }
+        json.append(sorted.isEmpty() ? "]\n" : "\n  ]\n");
+    }
+
+    private static long total(List<ScriptTiming> scripts) {
+        long total = 0;
+        for (ScriptTiming script : scripts) {
+            total += script.total();
+        }
+        return total;
+    }
+
+    private static void write(Path file, String json) throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.write(file, json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String millis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1_000_000.0);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+
+    private static final class ScriptTiming {
+        private final String module;
+
+        private final String execution;
+
+        private final String label;
+
+        private final PhaseTimings timings;
+
+        private final ScriptBudget.Usage usage;
+
+        private ScriptTiming(
+                String module, String execution, String label, PhaseTimings timings, ScriptBudget.Usage usage) {
+            this.module = module;
+            this.execution = execution;
+            this.label = label;
+            this.timings = timings;
+            this.usage = usage;
+        }
+
+        private long total() {
+            return timings.get(PhaseTimings.TOTAL);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * Cache key component matching the same object, without keeping it reachable: the class loaders of the selected
+ * project dependencies are created by each build, the realm caches must not keep them, nor their classes, once the
+ * build is done. A key whose object was reclaimed matches nothing and is evicted as the least recently used.
+ *
+ * @param <T> the type of the referenced object
+ */
+final class WeakIdentityKey<T> extends WeakReference<T> {
+    private final int hash;
+
+    /**
+     * @param referent the object to match, not null
+     */
+    WeakIdentityKey(T referent) {
+        super(referent);
+        this.hash = System.identityHashCode(referent);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        if (!(other instanceof WeakIdentityKey)) {
+            return false;
+        }
+        Object referent = get();
+        return referent != null && referent == ((WeakIdentityKey<?>) other).get();
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Defines classes from in memory bytecode, typically the output of {@link InMemoryJavaFileManager}.
+ * Closing it releases the bytecode, the defined classes are then unloaded with the loader once unreferenced.
+ */
+class ByteArrayClassLoader extends ClassLoader implements AutoCloseable {
+    static {
+        registerAsParallelCapable();
+    }
+
+    private final Map<String, byte[]> bytecode;
+
+    ByteArrayClassLoader(final ClassLoader parent, final Map<String, byte[]> bytecode) {
+        super(parent);
+        this.bytecode = new ConcurrentHashMap<>(bytecode);
+    }
+
+    @Override
+    protected Class<?> findClass(final String name) throws ClassNotFoundException {
+        final byte[] bytes = bytecode.remove(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void close() {
+        bytecode.clear();
+    }
+}
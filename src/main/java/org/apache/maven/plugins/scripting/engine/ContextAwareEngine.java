@@ -37,6 +37,14 @@ package org.apache.maven.plugins.scripting.engine;
  * under the License.
  */
 
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
 import org.apache.maven.plugin.logging.Log;
 
 /**
@@ -46,4 +54,31 @@ public interface ContextAwareEngine {
     default void setLog(Log log) {
         // no-op
     }
+
+    /**
+     * @param cacheDirectory directory where the engine can persist its compilation outputs across builds,
+     *                       {@code null} to disable such a persistent cache
+     */
+    default void setCacheDirectory(Path cacheDirectory) {
+        // no-op
+    }
+
+    /**
+     * @param classpath the entries compiled scripts are built against,
+     *                  {@code null} to let the engine compute its default one
+     */
+    default void setClasspath(List<File> classpath) {
+        // no-op
+    }
+
+    /**
+     * Compiles a script already loaded with its digest, only called on {@link Compilable} engines.
+     *
+     * @param source the script
+     * @return the compiled script
+     * @throws ScriptException if the script does not compile
+     */
+    default CompiledScript compile(ScriptSource source) throws ScriptException {
+        return ((Compilable) this).compile(source.getText());
+    }
 }
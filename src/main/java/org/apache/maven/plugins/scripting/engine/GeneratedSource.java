@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import javax.tools.Diagnostic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A class source generated around a script, with the lines it copies from the script, so compiler diagnostics are
+ * reported against the script the user wrote and not the code generated around it.
+ */
+final class GeneratedSource {
+    private final String code;
+
+    private final String script;
+
+    /**
+     * The script lines copied in the code: {generated line, script line, line count, column shift of the first line},
+     * lines being 1-based.
+     */
+    private final List<int[]> segments;
+
+    private GeneratedSource(final String code, final String script, final List<int[]> segments) {
+        this.code = code;
+        this.script = script;
+        this.segments = segments;
+    }
+
+    String getCode() {
+        return code;
+    }
+
+    /**
+     * Renders a diagnostic of this source: where it is in the script, its message and an excerpt of the script line
+     * with a caret under the reported column. Diagnostics in the generated code are reported against it.
+     *
+     * @param diagnostic a diagnostic javac reported for this source
+     * @return the rendered diagnostic, without trailing new line
+     */
+    String render(final Diagnostic<?> diagnostic) {
+        final String message = describe(diagnostic);
+        final long position = diagnostic.getPosition();
+        if (position == Diagnostic.NOPOS || position > code.length()) {
+            return message;
+        }
+        final int line = (int) diagnostic.getLineNumber();
+        final int column = (int) position - (code.lastIndexOf('\n', (int) position - 1) + 1);
+        for (final int[] segment : segments) {
+            if (line >= segment[0] && line - segment[0] < segment[2]) {
+                final int scriptLine = segment[1] + line - segment[0];
+                return "script line " + scriptLine + ": " + message + '\n'
+                        + excerpt(script, scriptLine, column - (line == segment[0] ? segment[3] : 0));
+            }
+        }
+        return "generated line " + line + ": " + message + '\n' + excerpt(code, line, column);
+    }
+
+    /**
+     * @return the kind and message of the diagnostic, like <code>error: cannot find symbol</code>
+     */
+    static String describe(final Diagnostic<?> diagnostic) {
+        return diagnostic.getKind().name().toLowerCase(Locale.ROOT).replace('_', ' ') + ": "
+                + diagnostic.getMessage(Locale.ROOT);
+    }
+
+    /**
+     * @return the line of the text and a caret under the column, both indented
+     */
+    private static String excerpt(final String text, final int line, final int column) {
+        int start = 0;
+        for (int i = 1; i < line && start >= 0; i++) {
+            start = text.indexOf('\n', start) + 1;
+            if (start == 0) {
+                return "";
+            }
+        }
+        int end = text.indexOf('\n', start);
+        if (end < 0) {
+            end = text.length();
+        }
+        if (end > start && text.charAt(end - 1) == '\r') {
+            end--;
+        }
+        final StringBuilder out = new StringBuilder("    ").append(text, start, end).append("\n    ");
+        final int caret = Math.max(0, Math.min(column, end - start));
+        for (int i = 0; i < caret; i++) {
+            // keep the tabs so the caret is aligned whatever their width
+            out.append(text.charAt(start + i) == '\t' ? '\t' : ' ');
+        }
+        return out.append('^').toString();
+    }
+
+    /**
+     * Builds a generated source recording where the script parts are copied. The script parts are appended in
+     * increasing offsets, except that a part before the previous one is supported at the price of a rescan.
+     */
+    static final class Builder {
+        private final StringBuilder code;
+
+        private final String script;
+
+        private final List<int[]> segments = new ArrayList<>();
+
+        private int codeCounted;
+
+        private int codeLine = 1;
+
+        private int codeLineStart;
+
+        private int scriptCounted;
+
+        private int scriptLine = 1;
+
+        private int scriptLineStart;
+
+        Builder(final String script, final int capacity) {
+            this.script = script;
+            this.code = new StringBuilder(capacity);
+        }
+
+        Builder append(final String generated) {
+            code.append(generated);
+            return this;
+        }
+
+        Builder append(final char generated) {
+            code.append(generated);
+            return this;
+        }
+
+        /**
+         * Copies a part of the script, its diagnostics will be reported at its script lines.
+         */
+        Builder appendScript(final int start, final int end) {
+            if (start < end) {
+                for (; codeCounted < code.length(); codeCounted++) {
+                    if (code.charAt(codeCounted) == '\n') {
+                        codeLine++;
+                        codeLineStart = codeCounted + 1;
+                    }
+                }
+                if (start < scriptCounted) {
+                    scriptCounted = 0;
+                    scriptLine = 1;
+                    scriptLineStart = 0;
+                }
+                for (; scriptCounted < start; scriptCounted++) {
+                    if (script.charAt(scriptCounted) == '\n') {
+                        scriptLine++;
+                        scriptLineStart = scriptCounted + 1;
+                    }
+                }
+                int lines = 1;
+                for (int i = start; i < end; i++) {
+                    if (script.charAt(i) == '\n') {
+                        lines++;
+                    }
+                }
+                segments.add(new int[] {
+                    codeLine, scriptLine, lines, (code.length() - codeLineStart) - (start - scriptLineStart)
+                });
+                code.append(script, start, end);
+            }
+            return this;
+        }
+
+        GeneratedSource build() {
+            return new GeneratedSource(code.toString(), script, segments);
+        }
+    }
+}
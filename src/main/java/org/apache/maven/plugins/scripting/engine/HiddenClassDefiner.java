@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+
+/**
+ * Defines script classes as hidden classes (JDK 15+) of this package: no class loader is created per script and the
+ * class is unloaded as soon as the script is no longer referenced, instead of when its loader is collected.
+ * The API is used reflectively since the plugin targets Java 8.
+ */
+final class HiddenClassDefiner {
+    private static final HiddenClassDefiner INSTANCE = create();
+
+    private final MethodHandles.Lookup lookup;
+
+    private final Method defineHiddenClass;
+
+    private final Method lookupClass;
+
+    private final Object options;
+
+    private HiddenClassDefiner(
+            final MethodHandles.Lookup lookup,
+            final Method defineHiddenClass,
+            final Method lookupClass,
+            final Object options) {
+        this.lookup = lookup;
+        this.defineHiddenClass = defineHiddenClass;
+        this.lookupClass = lookupClass;
+        this.options = options;
+    }
+
+    /**
+     * @return the definer or {@code null} if the JVM does not support hidden classes or they are disabled with the
+     *     {@code org.apache.maven.plugins.scripting.engine.JavaEngine.hiddenClasses} system property
+     */
+    static HiddenClassDefiner getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param bytecode the class, in the package of {@link JavaEngine} and not referenced by any other class
+     * @return the hidden class, linked to the class loader of this plugin
+     * @throws ReflectiveOperationException if the class can't be defined
+     */
+    Class<?> define(final byte[] bytecode) throws ReflectiveOperationException {
+        final Object hiddenLookup = defineHiddenClass.invoke(lookup, bytecode, true, options);
+        return (Class<?>) lookupClass.invoke(hiddenLookup);
+    }
+
+    private static HiddenClassDefiner create() {
+        if (!Boolean.parseBoolean(System.getProperty(JavaEngine.class.getName() + ".hiddenClasses", "true"))) {
+            return null;
+        }
+        try {
+            final Class<?> option = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            final Object options = Array.newInstance(option, 0);
+            final Method defineHiddenClass = MethodHandles.Lookup.class.getMethod(
+                    "defineHiddenClass", byte[].class, boolean.class, options.getClass());
+            final Method lookupClass = MethodHandles.Lookup.class.getMethod("lookupClass");
+            return new HiddenClassDefiner(MethodHandles.lookup(), defineHiddenClass, lookupClass, options);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null; // before JDK 15
+        }
+    }
+}
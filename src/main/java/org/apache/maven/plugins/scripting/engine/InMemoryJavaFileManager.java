@@ -0,0 +1,83 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A file manager capturing the class files javac produces in memory instead of writing them to disk.
+ */
+class InMemoryJavaFileManager extends ForwardingJavaFileManager<JavaFileManager> {
+    private final Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+
+    InMemoryJavaFileManager(final JavaFileManager delegate) {
+        super(delegate);
+    }
+
+    @Override
+    public JavaFileObject getJavaFileForOutput(
+            final Location location, final String className, final JavaFileObject.Kind kind, final FileObject sibling) {
+        if (kind != JavaFileObject.Kind.CLASS) {
+            throw new IllegalArgumentException("Unsupported output: " + className + " (" + kind + ")");
+        }
+        return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+            @Override
+            public OutputStream openOutputStream() {
+                final ByteArrayOutputStream out = new ByteArrayOutputStream();
+                classes.put(className, out);
+                return out;
+            }
+        };
+    }
+
+    /**
+     * @return the compiled classes bytecode indexed by binary name
+     */
+    Map<String, byte[]> getClasses() {
+        final Map<String, byte[]> bytecode = new HashMap<>(classes.size());
+        classes.forEach((name, out) -> bytecode.put(name, out.toByteArray()));
+        return bytecode;
+    }
+
+    /**
+     * @param className the binary name of the class to compile
+     * @param source the class source
+     * @return an in memory compilation unit
+     */
+    static JavaFileObject source(final String className, final String source) {
+        return new SimpleJavaFileObject(
+                URI.create("string:///" + className.replace('.', '/') + JavaFileObject.Kind.SOURCE.extension),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+}
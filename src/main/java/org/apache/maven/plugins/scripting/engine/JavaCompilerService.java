@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.maven.plugin.logging.Log;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compiles java scripts reusing warm {@link StandardJavaFileManager}, so the classpath jars are opened and indexed
+ * once and not for each script. There is one instance per plugin class realm, i.e. it is shared by all the
+ * {@link JavaEngine} of the build session.
+ * A file manager is used by one javac task at a time, so concurrent compilations borrow different ones: idle file
+ * managers are pooled by classpath, and the ones of a classpath whose files were modified are closed.
+ */
+final class JavaCompilerService {
+    private static final JavaCompilerService INSTANCE = new JavaCompilerService();
+
+    /**
+     * Bounds the file managers kept open between compilations, with their jars.
+     */
+    private static final int MAX_IDLE = 8;
+
+    /**
+     * Idle file managers by classpath fingerprint, least recently used first.
+     */
+    private final Map<List<String>, Deque<StandardJavaFileManager>> idle = new LinkedHashMap<>(16, 0.75f, true);
+
+    private volatile JavaCompiler compiler;
+
+    private JavaCompilerService() {
+        // singleton
+    }
+
+    /**
+     * @return the compiler service shared by the java engines of this class realm
+     */
+    static JavaCompilerService getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Compiles sources generated around scripts in a single javac task, reporting the compiler diagnostics at the
+     * script lines: the errors in the exception message, the warnings and notes in the log.
+     *
+     * @param classpath the compilation classpath entries
+     * @param sources the class sources indexed by binary name
+     * @param options the javac options like <code>--release</code>, can be null
+     * @param log where to report compiler messages, can be null
+     * @return the bytecode of all the compiled classes indexed by binary name
+     * @throws IOException if the classpath can't be set up
+     * @throws IllegalArgumentException if any source does not compile or an option is not supported
+     */
+    Map<String, byte[]> compileGenerated(
+            final List<File> classpath,
+            final Map<String, GeneratedSource> sources,
+            final List<String> options,
+            final Log log)
+            throws IOException {
+        final List<String> fingerprint = fingerprint(classpath);
+        final StandardJavaFileManager fileManager = acquire(fingerprint, classpath);
+        boolean reusable = false;
+        try {
+            final InMemoryJavaFileManager output = new InMemoryJavaFileManager(fileManager);
+            final Map<JavaFileObject, GeneratedSource> units = new IdentityHashMap<>(sources.size());
+            sources.forEach((className, source) ->
+                    units.put(InMemoryJavaFileManager.source(className, source.getCode()), source));
+            // never let javac write to the std streams, they are shared by all the modules of a parallel build
+            final StringWriter messages = new StringWriter();
+            final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+            final boolean success = getCompiler().getTask(messages, output, diagnostics, options, null, units.keySet())
+                    .call();
+            reusable = true;
+            report(sources, units, diagnostics, messages, success, log);
+            return output.getClasses();
+        } finally {
+            if (reusable) {
+                release(fingerprint, fileManager);
+            } else {
+                // an interrupted or crashed task can leave its jars closed
+                close(Collections.singletonList(fileManager));
+            }
+        }
+    }
+
+    private static void report(
+            final Map<String, GeneratedSource> sources,
+            final Map<JavaFileObject, GeneratedSource> units,
+            final DiagnosticCollector<JavaFileObject> diagnostics,
+            final StringWriter messages,
+            final boolean success,
+            final Log log) {
+        final StringBuilder errors = new StringBuilder();
+        final Set<GeneratedSource> failed = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            final GeneratedSource source = diagnostic.getSource() == null ? null : units.get(diagnostic.getSource());
+            final String rendered =
+                    source == null ? GeneratedSource.describe(diagnostic) : source.render(diagnostic);
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append('\n').append(rendered);
+                if (source != null) {
+                    failed.add(source);
+                }
+            } else if (log != null) {
+                if (diagnostic.getKind() == Diagnostic.Kind.NOTE || diagnostic.getKind() == Diagnostic.Kind.OTHER) {
+                    log.debug(rendered);
+                } else {
+                    log.warn(rendered);
+                }
+            }
+        }
+        if (log != null && messages.getBuffer().length() > 0) {
+            log.debug(messages.toString());
+        }
+        if (!success) {
+            if (log != null && log.isDebugEnabled()) {
+                for (final GeneratedSource source : failed) {
+                    log.debug("Generated code of the script which does not compile: >\n" + source.getCode() + "\n<");
+                }
+            }
+            throw new IllegalArgumentException("Can't compile the incoming script" + (sources.size() == 1 ? "" : "s")
+                    + ":" + (errors.length() == 0 ? "\n" + messages : errors));
+        }
+    }
+
+    /**
+     * @return an idle file manager of this classpath, or a new one if there is none
+     */
+    private StandardJavaFileManager acquire(final List<String> fingerprint, final List<File> classpath)
+            throws IOException {
+        final List<StandardJavaFileManager> stale = new ArrayList<>();
+        synchronized (idle) {
+            final Deque<StandardJavaFileManager> managers = idle.get(fingerprint);
+            if (managers != null && !managers.isEmpty()) {
+                return managers.pop();
+            }
+            // the classpath files changed since these managers indexed them
+            final Iterator<Map.Entry<List<String>, Deque<StandardJavaFileManager>>> entries =
+                    idle.entrySet().iterator();
+            while (entries.hasNext()) {
+                final Map.Entry<List<String>, Deque<StandardJavaFileManager>> entry = entries.next();
+                if (samePaths(entry.getKey(), fingerprint)) {
+                    stale.addAll(entry.getValue());
+                    entries.remove();
+                }
+            }
+        }
+        close(stale);
+
+        final StandardJavaFileManager fileManager =
+                getCompiler().getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        fileManager.setLocation(StandardLocation.CLASS_PATH, classpath);
+        return fileManager;
+    }
+
+    private void release(final List<String> fingerprint, final StandardJavaFileManager fileManager) {
+        final List<StandardJavaFileManager> evicted = new ArrayList<>();
+        synchronized (idle) {
+            idle.computeIfAbsent(fingerprint, key -> new ArrayDeque<>()).push(fileManager);
+            int size = 0;
+            for (final Deque<StandardJavaFileManager> managers : idle.values()) {
+                size += managers.size();
+            }
+            final Iterator<Deque<StandardJavaFileManager>> eldest = idle.values().iterator();
+            while (size > MAX_IDLE && eldest.hasNext()) {
+                final Deque<StandardJavaFileManager> managers = eldest.next();
+                while (size > MAX_IDLE && !managers.isEmpty()) {
+                    evicted.add(managers.removeLast());
+                    size--;
+                }
+                if (managers.isEmpty()) {
+                    eldest.remove();
+                }
+            }
+        }
+        close(evicted);
+    }
+
+    private JavaCompiler getCompiler() {
+        JavaCompiler current = compiler;
+        if (current == null) {
+            // plexus compiler is great but overkill there so don't bring it just for that
+            current = requireNonNull(ToolProvider.getSystemJavaCompiler(), "you must run on a JDK to have a compiler");
+            compiler = current;
+        }
+        return current;
+    }
+
+    /**
+     * Closes file managers which are not used anymore, a failure only leaks their jars until the next GC.
+     */
+    private static void close(final List<StandardJavaFileManager> fileManagers) {
+        for (final StandardJavaFileManager fileManager : fileManagers) {
+            try {
+                fileManager.close();
+            } catch (IOException e) {
+                // nothing to recover
+            }
+        }
+    }
+
+    private static List<String> fingerprint(final List<File> classpath) {
+        final List<String> entries = new ArrayList<>(classpath.size());
+        for (final File file : classpath) {
+            entries.add(file.getAbsolutePath() + '|' + file.length() + '|' + file.lastModified());
+        }
+        return entries;
+    }
+
+    /**
+     * @return whether both fingerprints have the same entries, possibly with different contents
+     */
+    private static boolean samePaths(final List<String> fingerprint, final List<String> other) {
+        if (fingerprint.size() != other.size()) {
+            return false;
+        }
+        for (int i = 0; i < fingerprint.size(); i++) {
+            if (!path(fingerprint.get(i)).equals(path(other.get(i)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the path of a fingerprint entry, without its size and last modification
+     */
+    private static String path(final String entry) {
+        return entry.substring(0, entry.lastIndexOf('|', entry.lastIndexOf('|') - 1));
+    }
+}
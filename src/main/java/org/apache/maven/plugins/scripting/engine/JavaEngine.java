@@ -41,43 +41,183 @@ import javax.script.AbstractScriptEngine;
 import javax.script.Bindings;
 import javax.script.Compilable;
 import javax.script.CompiledScript;
+import javax.script.Invocable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptEngineFactory;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
-import javax.tools.JavaCompiler;
-import javax.tools.ToolProvider;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.Reader;
-import java.io.StringReader;
-import java.io.Writer;
-import java.net.URL;
-import java.net.URLClassLoader;
+import java.io.UncheckedIOException;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import org.apache.maven.plugin.logging.Log;
 
-import static java.util.Objects.requireNonNull;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.joining;
 
 /**
  * The java engine implementation.
  */
-public class JavaEngine extends AbstractScriptEngine implements Compilable, ContextAwareEngine {
+public class JavaEngine extends AbstractScriptEngine implements Compilable, Invocable, ContextAwareEngine {
+    private static final String SOURCE_IMPORTS = "import java.io.*;\n"
+            + "import java.net.*;\n"
+            + "import java.util.*;\n"
+            + "import java.util.stream.*;\n"
+            + "import java.nio.file.*;\n"
+            + "import java.lang.invoke.MethodHandles;\n"
+            + "import org.apache.maven.project.MavenProject;\n"
+            + "import org.apache.maven.plugin.logging.Log;\n"
+            + "import org.apache.maven.plugins.scripting.engine.ScriptFunctions;\n"
+            + "\n"
+            + "import javax.script.Bindings;\n"
+            + "import javax.script.CompiledScript;\n"
+            + "import javax.script.Invocable;\n"
+            + "import javax.script.ScriptContext;\n"
+            + "import javax.script.ScriptEngine;\n"
+            + "import javax.script.ScriptException;\n"
+            + "\n";
+
+    private static final String SOURCE_CONSTRUCTOR = " extends CompiledScript implements Invocable, AutoCloseable {\n"
+            + "    private static final ScriptFunctions $functions = ScriptFunctions.of(MethodHandles.lookup());\n"
+            + "\n"
+            + "    private final ScriptEngine $engine;\n"
+            + "    private final ClassLoader $loader;\n"
+            + "\n"
+            + "    public ";
+
+    private static final String SOURCE_EVAL = "( ScriptEngine engine, ClassLoader loader) {\n"
+            + "        this.$engine = engine;\n"
+            + "        this.$loader = loader;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public Object eval( ScriptContext $context) throws ScriptException {\n"
+            + "        final Thread $thread = Thread.currentThread();\n"
+            + "        final ClassLoader $oldClassLoader = $thread.getContextClassLoader();\n"
+            + "        $thread.setContextClassLoader($loader);\n"
+            + "        try {\n"
+            + "           final Bindings $bindings = $context.getBindings(ScriptContext.GLOBAL_SCOPE);\n"
+            + "           final MavenProject $project = MavenProject.class.cast($bindings.get(\"project\"));\n"
+            + "           final Log $log = Log.class.cast($bindings.get(\"log\"));\n"
+            + "           if (true) {\n" // lets a script end with a return statement
+            + "           ";
+
+    private static final String SOURCE_END = "\n"
+            + "           }\n"
+            + "           return null;\n"
+            + "        } catch ( Exception e) {\n"
+            + "            if (RuntimeException.class.isInstance(e)) {\n"
+            + "                throw RuntimeException.class.cast(e);\n"
+            + "            }\n"
+            + "            throw new IllegalStateException(e);\n"
+            + "        } finally {\n"
+            + "            $thread.setContextClassLoader($oldClassLoader);\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public ScriptEngine getEngine() {\n"
+            + "        return $engine;\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public void close() throws Exception {\n"
+            + "        // only close the loader created for this script, not a shared one\n"
+            + "        if ($loader instanceof AutoCloseable && $loader == getClass().getClassLoader()\n"
+            + "                && $loader != $engine.getClass().getClassLoader()) {\n"
+            + "            ((AutoCloseable) $loader).close();\n"
+            + "        }\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public Object invokeFunction(String name, Object... args)\n"
+            + "            throws ScriptException, NoSuchMethodException {\n"
+            + "        return $functions.invokeFunction(this, name, args);\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public Object invokeMethod(Object thiz, String name, Object... args)\n"
+            + "            throws ScriptException, NoSuchMethodException {\n"
+            + "        return $functions.invokeMethod(thiz, name, args);\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public <T> T getInterface(Class<T> type) {\n"
+            + "        return $functions.getInterface(this, type, true);\n"
+            + "    }\n"
+            + "\n"
+            + "    @Override\n"
+            + "    public <T> T getInterface(Object thiz, Class<T> type) {\n"
+            + "        return $functions.getInterface(thiz, type, false);\n"
+            + "    }\n";
+
+    private static final String SOURCE_CLASS_END = "}";
+
+    /**
+     * The declaration of a method at the top level of a script, up to its opening brace.
+     */
+    private static final Pattern METHOD = Pattern.compile("\\s*(?:@[\\w.]+(?:\\([^)]*\\))?\\s+)*"
+            + "(?:(?:public|protected|private|static|final|synchronized|strictfp)\\s+)*(?:<[^>]*>\\s*)?"
+            + "([\\w.$]+(?:<.*>)?(?:\\[\\])*)\\s+([\\w$]+)\\s*\\([^;=]*\\)\\s*(?:throws\\s+[\\w.$,\\s]+)?"
+            + "(?<open>\\{).*");
+
+    /**
+     * Keywords a statement opening a block can start with, so it is not taken for a method.
+     */
+    private static final Set<String> STATEMENT_KEYWORDS = new HashSet<>(Arrays.asList(
+            "new", "return", "else", "throw", "case", "yield", "assert", "do", "try", "catch", "finally", "if",
+            "for", "while", "switch", "synchronized"));
+
+    private static final int SOURCE_TEMPLATE_LENGTH = "package ;\n\n".length()
+            + SOURCE_IMPORTS.length()
+            + "\npublic class ".length()
+            + SOURCE_CONSTRUCTOR.length()
+            + SOURCE_EVAL.length()
+            + SOURCE_END.length()
+            + SOURCE_CLASS_END.length();
+
+    /**
+     * Identifies the generated code around the scripts, part of the persistent cache key.
+     */
+    private static final String SOURCE_TEMPLATE_DIGEST = Digests.sha256Hex(toSource("", "", "").getCode());
+
     private final ScriptEngineFactory factory;
 
     private Log log;
 
+    private Path cacheDirectory;
+
+    private List<File> classpath;
+
+    /**
+     * The last script each thread evaluated by {@link #eval(String, ScriptContext)}, whose functions {@link Invocable}
+     * calls: the engine being {@code MULTITHREADED}, a thread must not call the script of another one.
+     */
+    private final ThreadLocal<CompiledScript> evaluated = new ThreadLocal<>();
+
     public JavaEngine(ScriptEngineFactory factory) {
         this.factory = factory;
     }
@@ -87,84 +227,340 @@ public class JavaEngine extends AbstractScriptEngine implements Compilable, Cont
         this.log = log;
     }
 
+    @Override
+    public void setCacheDirectory(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    @Override
+    public void setClasspath(List<File> classpath) {
+        this.classpath = classpath;
+    }
+
     @Override
     public CompiledScript compile(String script) throws ScriptException {
-        // plexus compiler is great but overkill there so don't bring it just for that
-        final JavaCompiler compiler =
-                requireNonNull(ToolProvider.getSystemJavaCompiler(), "you must run on a JDK to have a compiler");
-        Path tmpDir = null;
+        return compile(ScriptSource.of(script));
+    }
+
+    @Override
+    public CompiledScript compile(ScriptSource source) throws ScriptException {
+        return compileAll(singletonList(source)).get(source.getDigest());
+    }
+
+    /**
+     * Compiles several scripts at once, see {@link #compileAll(Collection)}.
+     *
+     * @param scripts the scripts to compile
+     * @return the compiled scripts indexed by script
+     * @throws ScriptException if a script does not compile
+     */
+    public Map<String, CompiledScript> compile(Collection<String> scripts) throws ScriptException {
+        final Map<String, ScriptSource> sources = new LinkedHashMap<>();
+        for (final String script : scripts) {
+            sources.computeIfAbsent(script, ScriptSource::of);
+        }
+        final Map<String, CompiledScript> compiled = compileAll(sources.values());
+        final Map<String, CompiledScript> byScript = new HashMap<>();
+        sources.forEach((script, source) -> byScript.put(script, compiled.get(source.getDigest())));
+        return byScript;
+    }
+
+    /**
+     * Compiles several scripts at once: the ones which are not in the persistent cache are compiled by a single
+     * javac task, so its setup and classpath indexing are paid once for all of them.
+     *
+     * @param scripts the scripts to compile
+     * @return the compiled scripts indexed by {@link ScriptSource#getDigest() digest}
+     * @throws ScriptException if a script does not compile
+     */
+    public Map<String, CompiledScript> compileAll(Collection<ScriptSource> scripts) throws ScriptException {
         try {
-            tmpDir = Files.createTempDirectory(getClass().getSimpleName());
-
-            final String packageName = getClass().getPackage().getName() + ".generated";
-            final String className = "JavaCompiledScript_" + Math.abs(script.hashCode());
-            final String source = toSource(packageName, className, script);
-            final Path src = tmpDir.resolve("sources");
-            final Path bin = tmpDir.resolve("bin");
-            final Path srcDir = src.resolve(packageName.replace('.', '/'));
-            Files.createDirectories(srcDir);
-            Files.createDirectories(bin);
-            final Path java = srcDir.resolve(className + ".java");
-            try (Writer writer = Files.newBufferedWriter(java)) {
-                writer.write(source);
+            // the package of the engine, the one hidden classes are defined in
+            final String packageName = JavaEngine.class.getPackage().getName();
+            final List<File> entries = classpath != null ? classpath : defaultClasspath();
+            final Path cache = getCacheDirectory();
+            final String path = cache == null ? null : classpathKey(entries);
+
+            final Map<String, String> classNames = new LinkedHashMap<>();
+            final Map<String, Map<String, byte[]>> bytecode = new HashMap<>();
+            final Map<String, GeneratedSource> sources = new LinkedHashMap<>();
+            final Map<String, Path> cacheEntries = new HashMap<>();
+            for (final ScriptSource script : scripts) {
+                final String scriptDigest = script.getDigest();
+                if (classNames.containsKey(scriptDigest)) {
+                    continue;
+                }
+                final String simpleName = "JavaCompiledScript_" + scriptDigest;
+                final String className = packageName + '.' + simpleName;
+                classNames.put(scriptDigest, className);
+
+                // the class name already identifies the script, the cache key adds what else changes the bytecode:
+                // the generated code around the script, the classpath and the JDK
+                final Path cached = cache == null
+                        ? null
+                        : cache.resolve(Digests.sha256Hex(className + '\0' + SOURCE_TEMPLATE_DIGEST + '\0' + path + '\0'
+                                + System.getProperty("java.vendor") + ' ' + System.getProperty("java.version")));
+                Map<String, byte[]> classes = null;
+                if (cached != null) {
+                    final long start = System.nanoTime();
+                    classes = readCache(cached);
+                    PhaseTimings.record(PhaseTimings.CACHE, start);
+                    cacheEntries.put(className, cached);
+                }
+                if (classes == null) {
+                    sources.put(className, toSource(packageName, simpleName, script.getText()));
+                } else {
+                    if (log != null) {
+                        log.debug("Reusing cached script classes from " + cached);
+                    }
+                    bytecode.put(className, classes);
+                }
+            }
+
+            if (!sources.isEmpty()) {
+                final long start = System.nanoTime();
+                final Map<String, byte[]> compiled =
+                        JavaCompilerService.getInstance().compileGenerated(entries, sources, null, log);
+                PhaseTimings.record(PhaseTimings.JAVAC, start);
+                for (final String className : sources.keySet()) {
+                    final Map<String, byte[]> classes = new HashMap<>();
+                    compiled.forEach((name, bytes) -> {
+                        if (name.equals(className) || name.startsWith(className + '$')) {
+                            classes.put(name, bytes);
+                        }
+                    });
+                    bytecode.put(className, classes);
+                    final Path cached = cacheEntries.get(className);
+                    if (cached != null) {
+                        writeCache(cached, classes);
+                    }
+                }
             }
 
-            // TODO: make it configurable from the project in subsequent releases
-            final String classpath = mavenClasspathPrefix()
-                    + System.getProperty(
-                            getClass().getName() + ".classpath",
-                            System.getProperty("java.class.path", System.getProperty("surefire.real.class.path")));
-
-            // TODO: use a Logger in subsequent releases. Not very important as of now, so using std streams
-            final int run = compiler.run(
-                    null,
-                    System.out,
-                    System.err,
-                    Stream.of(
-                                    "-classpath",
-                                    classpath,
-                                    "-sourcepath",
-                                    src.toAbsolutePath().toString(),
-                                    "-d",
-                                    bin.toAbsolutePath().toString(),
-                                    java.toAbsolutePath().toString())
-                            .toArray(String[]::new));
-            if (run != 0) {
-                throw new IllegalArgumentException(
-                        "Can't compile the incoming script, here is the generated code: >\n" + source + "\n<\n");
+            final long start = System.nanoTime();
+            final Map<String, CompiledScript> compiledScripts = new HashMap<>();
+            for (final Map.Entry<String, String> script : classNames.entrySet()) {
+                compiledScripts.put(script.getKey(), define(script.getValue(), bytecode.get(script.getValue())));
             }
-            final URLClassLoader loader = new URLClassLoader(
-                    new URL[] {bin.toUri().toURL()}, Thread.currentThread().getContextClassLoader());
-            final Class<? extends CompiledScript> loadClass =
-                    loader.loadClass(packageName + '.' + className).asSubclass(CompiledScript.class);
-            return loadClass
-                    .getConstructor(ScriptEngine.class, URLClassLoader.class)
-                    .newInstance(this, loader);
+            PhaseTimings.record(PhaseTimings.DEFINE, start);
+            return compiledScripts;
         } catch (Exception e) {
             throw new ScriptException(e);
+        }
+    }
+
+    /**
+     * Compiles scripts to classes of the given names, like {@link #compileAll(Collection)} but without caching nor
+     * defining them, to package them as precompiled scripts.
+     *
+     * @param scripts the scripts indexed by the binary name of their class, in a named package
+     * @param options the javac options like <code>--release</code>, can be null
+     * @return the bytecode of the compiled classes indexed by binary name
+     * @throws ScriptException if a script does not compile
+     */
+    public Map<String, byte[]> compileClasses(final Map<String, ScriptSource> scripts, final List<String> options)
+            throws ScriptException {
+        final Map<String, GeneratedSource> sources = new LinkedHashMap<>();
+        scripts.forEach((className, script) -> {
+            final int dot = className.lastIndexOf('.');
+            sources.put(
+                    className,
+                    toSource(className.substring(0, dot), className.substring(dot + 1), script.getText()));
+        });
+        try {
+            final List<File> entries = classpath != null ? classpath : defaultClasspath();
+            final long start = System.nanoTime();
+            final Map<String, byte[]> classes =
+                    JavaCompilerService.getInstance().compileGenerated(entries, sources, options, log);
+            PhaseTimings.record(PhaseTimings.JAVAC, start);
+            return classes;
+        } catch (Exception e) {
+            throw new ScriptException(e);
+        }
+    }
+
+    /**
+     * Instantiates a script compiled by {@link #compileClasses(Map, List)}, loaded by the context class loader.
+     *
+     * @param className the binary name of the script class
+     * @return the script, bound to this engine
+     * @throws ScriptException if the class can't be loaded or is not a compiled script
+     */
+    public CompiledScript loadCompiledScript(final String className) throws ScriptException {
+        final ClassLoader loader = Thread.currentThread().getContextClassLoader();
+        try {
+            return loader.loadClass(className)
+                    .asSubclass(CompiledScript.class)
+                    .getConstructor(ScriptEngine.class, ClassLoader.class)
+                    .newInstance(this, loader);
+        } catch (ReflectiveOperationException | ClassCastException | LinkageError e) {
+            final ScriptException error = new ScriptException("Can't load the precompiled script " + className);
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    private CompiledScript define(final String className, final Map<String, byte[]> bytecode) throws Exception {
+        final ClassLoader parent = Thread.currentThread().getContextClassLoader();
+        final Class<?> hidden = defineHidden(parent, className, bytecode);
+        if (hidden != null) {
+            return hidden.asSubclass(CompiledScript.class)
+                    .getConstructor(ScriptEngine.class, ClassLoader.class)
+                    .newInstance(this, parent);
+        }
+
+        final ByteArrayClassLoader loader = new ByteArrayClassLoader(parent, bytecode);
+        final Class<? extends CompiledScript> loadClass =
+                loader.loadClass(className).asSubclass(CompiledScript.class);
+        return loadClass.getConstructor(ScriptEngine.class, ClassLoader.class).newInstance(this, loader);
+    }
+
+    /**
+     * A hidden class can't be referenced by name, so scripts with nested classes get their own loader, and it is
+     * linked to the loader of the engine, so scripts using project dependencies too.
+     *
+     * @return the script class defined as a hidden class or {@code null} if it can't be
+     */
+    private Class<?> defineHidden(
+            final ClassLoader parent, final String className, final Map<String, byte[]> bytecode) {
+        final HiddenClassDefiner definer = HiddenClassDefiner.getInstance();
+        if (definer == null || bytecode.size() != 1 || parent != JavaEngine.class.getClassLoader()) {
+            return null;
+        }
+        try {
+            return definer.define(bytecode.get(className));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            if (log != null) {
+                log.debug("Can't define " + className + " as a hidden class", e);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * @return the classpath used when none is set: the maven libraries and the JVM one
+     */
+    private List<File> defaultClasspath() {
+        final String classpath = mavenClasspathPrefix()
+                + System.getProperty(
+                        getClass().getName() + ".classpath",
+                        System.getProperty("java.class.path", System.getProperty("surefire.real.class.path")));
+        final List<File> entries = new ArrayList<>();
+        for (final String entry : classpath.split(File.pathSeparator)) {
+            if (!entry.isEmpty()) {
+                entries.add(new File(entry));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * @param cached the cache entry directory
+     * @return the cached bytecode indexed by binary class name or {@code null} if the entry does not exist
+     */
+    private Map<String, byte[]> readCache(final Path cached) throws IOException {
+        if (!Files.isDirectory(cached)) {
+            return null;
+        }
+        final Map<String, byte[]> bytecode = new HashMap<>();
+        Files.walkFileTree(cached, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                final String relative = cached.relativize(file).toString().replace(File.separatorChar, '/');
+                if (relative.endsWith(".class")) {
+                    final String className = relative.substring(0, relative.length() - ".class".length());
+                    bytecode.put(className.replace('/', '.'), Files.readAllBytes(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return bytecode.isEmpty() ? null : bytecode;
+    }
+
+    /**
+     * Writes the bytecode in a temporary directory then moves it atomically to its final cache location
+     * so a concurrent build never sees a partially written entry. If another build published the same entry
+     * first, ours is dropped. A failure only costs a recompilation next time so it is not propagated.
+     */
+    private void writeCache(final Path cached, final Map<String, byte[]> bytecode) {
+        Path output = null;
+        try {
+            Files.createDirectories(cached.getParent());
+            output = Files.createTempDirectory(cached.getParent(), cached.getFileName() + ".");
+            for (final Map.Entry<String, byte[]> clazz : bytecode.entrySet()) {
+                final Path file = output.resolve(clazz.getKey().replace('.', '/') + ".class");
+                Files.createDirectories(file.getParent());
+                Files.write(file, clazz.getValue());
+            }
+            Files.move(output, cached, StandardCopyOption.ATOMIC_MOVE);
+            output = null;
+        } catch (IOException e) {
+            if (log != null) {
+                log.debug("Can't cache compiled script in " + cached, e);
+            }
         } finally {
-            if (tmpDir != null) {
-                try {
-                    Files.walkFileTree(tmpDir, new SimpleFileVisitor<Path>() {
-                        @Override
-                        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                            Files.delete(file);
-                            return FileVisitResult.CONTINUE;
-                        }
+            if (output != null) {
+                delete(output);
+            }
+        }
+    }
 
-                        @Override
-                        public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
-                            Files.delete(dir);
-                            return FileVisitResult.CONTINUE;
-                        }
-                    });
-                } catch (IOException e) {
+    private Path getCacheDirectory() {
+        if (cacheDirectory != null) {
+            return cacheDirectory;
+        }
+        final String property = System.getProperty(getClass().getName() + ".cache");
+        return property == null || property.isEmpty() ? null : Paths.get(property);
+    }
+
+    private void delete(final Path root) {
+        try {
+            Files.walkFileTree(root, new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                    Files.delete(file);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                    Files.delete(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+            });
+        } catch (IOException e) {
+            if (log != null) {
+                log.debug(e);
+            }
+        }
+    }
+
+    /**
+     * Identifies the classpath entries and their content, as size and last modification, so a jar or a directory
+     * rebuilt at the same path does not reuse classes compiled against its previous API. A directory is identified by
+     * its most recently modified file.
+     */
+    private String classpathKey(final List<File> entries) {
+        final StringBuilder key = new StringBuilder();
+        for (final File entry : entries) {
+            key.append(entry.getPath()).append('|');
+            if (entry.isDirectory()) {
+                try (Stream<Path> files = Files.walk(entry.toPath())) {
+                    final LongSummaryStatistics modified =
+                            files.mapToLong(file -> file.toFile().lastModified()).summaryStatistics();
+                    key.append(modified.getCount()).append('|').append(modified.getMax());
+                } catch (IOException | UncheckedIOException e) {
                     if (log != null) {
-                        log.debug(e);
+                        log.debug("Can't scan " + entry, e);
                     }
+                    key.append(System.nanoTime()); // never reuse a cache entry which can't be identified
                 }
+            } else {
+                key.append(entry.length()).append('|').append(entry.lastModified());
             }
+            key.append(File.pathSeparatorChar);
         }
+        return key.toString();
     }
 
     private String mavenClasspathPrefix() {
@@ -190,114 +586,185 @@ public class JavaEngine extends AbstractScriptEngine implements Compilable, Cont
         }
     }
 
-    private String toSource(String pck, String name, String script) {
-        final String[] importsAndScript = splitImportsAndScript(script);
-        return "package " + pck + ";\n"
-                + "\n"
-                + "import java.io.*;\n"
-                + "import java.net.*;\n"
-                + "import java.util.*;\n"
-                + "import java.util.stream.*;\n"
-                + "import java.nio.file.*;\n"
-                + "import org.apache.maven.project.MavenProject;\n"
-                + "import org.apache.maven.plugin.logging.Log;\n"
-                + "\n"
-                + "import javax.script.Bindings;\n"
-                + "import javax.script.CompiledScript;\n"
-                + "import javax.script.ScriptContext;\n"
-                + "import javax.script.ScriptEngine;\n"
-                + "import javax.script.ScriptException;\n"
-                + "\n"
-                + importsAndScript[0] + '\n'
-                + "\n"
-                + "public class " + name + " extends CompiledScript implements AutoCloseable {\n"
-                + "    private final ScriptEngine $engine;\n"
-                + "    private final URLClassLoader $loader;\n"
-                + "\n"
-                + "    public " + name + "( ScriptEngine engine, URLClassLoader loader) {\n"
-                + "        this.$engine = engine;\n"
-                + "        this.$loader = loader;\n"
-                + "    }\n"
-                + "\n"
-                + "    @Override\n"
-                + "    public Object eval( ScriptContext $context) throws ScriptException {\n"
-                + "        final Thread $thread = Thread.currentThread();\n"
-                + "        final ClassLoader $oldClassLoader = $thread.getContextClassLoader();\n"
-                + "        $thread.setContextClassLoader($loader);\n"
-                + "        try {\n"
-                + "           final Bindings $bindings = $context.getBindings(ScriptContext.GLOBAL_SCOPE);\n"
-                + "           final MavenProject $project = MavenProject.class.cast($bindings.get(\"project\"));\n"
-                + "           final Log $log = Log.class.cast($bindings.get(\"log\"));\n"
-                + "           " + importsAndScript[1] + "\n"
-                + "           return null;\n" // assume the script doesn't return anything for now
-                + "        } catch ( Exception e) {\n"
-                + "            if (RuntimeException.class.isInstance(e)) {\n"
-                + "                throw RuntimeException.class.cast(e);\n"
-                + "            }\n"
-                + "            throw new IllegalStateException(e);\n"
-                + "        } finally {\n"
-                + "            $thread.setContextClassLoader($oldClassLoader);\n"
-                + "        }\n"
-                + "    }\n"
-                + "\n"
-                + "    @Override\n"
-                + "    public ScriptEngine getEngine() {\n"
-                + "        return $engine;\n"
-                + "    }\n"
-                + "\n"
-                + "    @Override\n"
-                + "    public void close() throws Exception {\n"
-                + "        $loader.close();\n"
-                + "    }\n"
-                + "}";
-    }
-
-    private String[] splitImportsAndScript(String script) {
-        final StringBuilder imports = new StringBuilder();
-        final StringBuilder content = new StringBuilder();
-        boolean useImport = true;
+    /**
+     * Wraps the script in a {@link CompiledScript} class. The script is scanned once for its leading imports, then
+     * copied once in a buffer sized for the whole class, recording where its lines land to report compiler
+     * diagnostics at the script lines.
+     */
+    static GeneratedSource toSource(final String pck, final String name, final String script) {
+        final List<int[]> imports = new ArrayList<>();
+        int contentStart = script.length();
         boolean inComment = false;
-        try (BufferedReader reader = new BufferedReader(new StringReader(script))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (useImport) {
-                    String trimmed = line.trim();
-                    if (trimmed.isEmpty()) {
-                        continue;
-                    }
-                    if (trimmed.startsWith("/*")) {
-                        inComment = true;
-                        continue;
-                    }
-                    if (trimmed.endsWith("*/") && inComment) {
-                        inComment = false;
-                        continue;
-                    }
-                    if (inComment) {
-                        continue;
-                    }
-                    if (trimmed.startsWith("import ") && trimmed.endsWith(";")) {
-                        imports.append(line).append('\n');
+        int lineStart = 0;
+        while (lineStart < script.length()) {
+            int lineEnd = script.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = script.length();
+            }
+            final String trimmed = script.substring(lineStart, lineEnd).trim();
+            if (trimmed.startsWith("/*")) {
+                inComment = trimmed.length() < 4 || !trimmed.endsWith("*/");
+            } else if (inComment) {
+                inComment = !trimmed.endsWith("*/");
+            } else if (trimmed.startsWith("import ") && trimmed.endsWith(";")) {
+                imports.add(new int[] {lineStart, lineEnd});
+            } else if (!trimmed.isEmpty()) {
+                contentStart = lineStart;
+                break;
+            }
+            lineStart = lineEnd + 1;
+        }
+        int contentEnd = script.length();
+        while (contentStart < contentEnd && script.charAt(contentStart) <= ' ') {
+            contentStart++;
+        }
+        while (contentEnd > contentStart && script.charAt(contentEnd - 1) <= ' ') {
+            contentEnd--;
+        }
+        final List<int[]> members = findMembers(script, contentStart, contentEnd);
+
+        final GeneratedSource.Builder source = new GeneratedSource.Builder(
+                script,
+                SOURCE_TEMPLATE_LENGTH + pck.length() + 2 * name.length() + script.length() + imports.size());
+        source.append("package ").append(pck).append(";\n\n").append(SOURCE_IMPORTS);
+        for (final int[] line : imports) {
+            source.appendScript(line[0], line[1]).append('\n');
+        }
+        source.append("\npublic class ")
+                .append(name)
+                .append(SOURCE_CONSTRUCTOR)
+                .append(name)
+                .append(SOURCE_EVAL);
+        // the methods are moved to the class, their lines are kept empty so the body lines don't move
+        int bodyStart = contentStart;
+        for (final int[] member : members) {
+            source.appendScript(bodyStart, member[0]);
+            for (int i = member[0]; i < member[1]; i++) {
+                if (script.charAt(i) == '\n') {
+                    source.append('\n');
+                }
+            }
+            bodyStart = member[1];
+        }
+        source.appendScript(bodyStart, contentEnd).append(SOURCE_END);
+        for (final int[] member : members) {
+            source.append("\n    ").appendScript(member[0], member[1]).append('\n');
+        }
+        return source.append(SOURCE_CLASS_END).build();
+    }
+
+    /**
+     * Finds the methods declared by a script: declarations at the top level of the script whose opening brace is on
+     * the declaration line, like <code>int twice(int value) {</code>.
+     *
+     * @return the start and end offsets of the methods in the script
+     */
+    private static List<int[]> findMembers(final String script, final int start, final int end) {
+        final List<int[]> members = new ArrayList<>();
+        int depth = 0;
+        int i = start;
+        while (i < end) {
+            if (depth == 0 && (i == start || script.charAt(i - 1) == '\n')) {
+                int lineEnd = script.indexOf('\n', i);
+                if (lineEnd < 0 || lineEnd > end) {
+                    lineEnd = end;
+                }
+                final Matcher method = METHOD.matcher(script.substring(i, lineEnd));
+                if (method.matches()
+                        && !STATEMENT_KEYWORDS.contains(method.group(1))
+                        && !STATEMENT_KEYWORDS.contains(method.group(2))) {
+                    final int memberEnd = skipBlock(script, i + method.start("open"), end);
+                    if (memberEnd > 0) {
+                        members.add(new int[] {i, memberEnd});
+                        i = memberEnd;
                         continue;
                     }
-                    useImport = false;
                 }
-                content.append(line).append('\n');
             }
-        } catch (IOException ioe) {
-            throw new IllegalStateException(ioe);
+            final int skipped = skipLiteral(script, i, end);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            final char c = script.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}') {
+                depth--;
+            }
+            i++;
+        }
+        return members;
+    }
+
+    /**
+     * @return the offset after the block opened at {@code open}, or {@code -1} if it is not closed
+     */
+    private static int skipBlock(final String script, final int open, final int end) {
+        int depth = 0;
+        int i = open;
+        while (i < end) {
+            final int skipped = skipLiteral(script, i, end);
+            if (skipped > i) {
+                i = skipped;
+                continue;
+            }
+            final char c = script.charAt(i);
+            if (c == '{') {
+                depth++;
+            } else if (c == '}' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * @return the offset after the comment, string, text block or character literal starting at {@code i}, or
+     *     {@code i} if none starts there
+     */
+    private static int skipLiteral(final String script, final int i, final int end) {
+        final char c = script.charAt(i);
+        final char next = i + 1 < end ? script.charAt(i + 1) : 0;
+        if (c == '/' && next == '/') {
+            final int lineEnd = script.indexOf('\n', i);
+            return lineEnd < 0 || lineEnd > end ? end : lineEnd;
+        }
+        if (c == '/' && next == '*') {
+            final int commentEnd = script.indexOf("*/", i + 2);
+            return commentEnd < 0 || commentEnd + 2 > end ? end : commentEnd + 2;
+        }
+        if (c == '"' && script.startsWith("\"\"\"", i)) {
+            final int blockEnd = script.indexOf("\"\"\"", i + 3);
+            return blockEnd < 0 || blockEnd + 3 > end ? end : blockEnd + 3;
+        }
+        if (c == '"' || c == '\'') {
+            int j = i + 1;
+            while (j < end && script.charAt(j) != c) {
+                j += script.charAt(j) == '\\' ? 2 : 1;
+            }
+            return Math.min(j + 1, end);
         }
-        return new String[] {imports.toString().trim(), content.toString().trim()};
+        return i;
     }
 
+    /**
+     * Evaluates the script, and keeps it so the methods it declares can be invoked through {@link Invocable} by the
+     * calling thread, until it evaluates another script.
+     */
     @Override
     public Object eval(String script, ScriptContext context) throws ScriptException {
+        final long start = System.nanoTime();
         final CompiledScript compile = compile(script);
-        try {
-            return compile.eval(context);
-        } finally {
-            doClose(compile);
+        PhaseTimings.record(PhaseTimings.COMPILE, start);
+        // the replaced script was compiled for this thread only, nothing else can use it
+        final CompiledScript replaced = evaluated.get();
+        evaluated.set(compile);
+        if (replaced != null && replaced != compile) {
+            close(replaced);
         }
+        return compile.eval(context);
     }
 
     @Override
@@ -320,20 +787,57 @@ public class JavaEngine extends AbstractScriptEngine implements Compilable, Cont
         return factory;
     }
 
-    private void doClose(final CompiledScript compile) {
-        if (!AutoCloseable.class.isInstance(compile)) {
-            return;
+    @Override
+    public Object invokeFunction(final String name, final Object... args)
+            throws ScriptException, NoSuchMethodException {
+        return getEvaluated().invokeFunction(name, args);
+    }
+
+    @Override
+    public Object invokeMethod(final Object thiz, final String name, final Object... args)
+            throws ScriptException, NoSuchMethodException {
+        return getEvaluated().invokeMethod(thiz, name, args);
+    }
+
+    @Override
+    public <T> T getInterface(final Class<T> type) {
+        return getEvaluated().getInterface(type);
+    }
+
+    @Override
+    public <T> T getInterface(final Object thiz, final Class<T> type) {
+        return getEvaluated().getInterface(thiz, type);
+    }
+
+    private Invocable getEvaluated() {
+        final CompiledScript script = evaluated.get();
+        if (script == null) {
+            throw new IllegalStateException("No script evaluated by this thread, its functions can't be invoked");
         }
+        return (Invocable) script;
+    }
+
+    private void close(final CompiledScript script) {
         try {
-            AutoCloseable.class.cast(compile).close();
-        } catch (Exception e) {
+            ((AutoCloseable) script).close();
+        } catch (final Exception e) {
             if (log != null) {
-                log.debug(e);
+                log.debug("Can't close the replaced script", e);
             }
         }
     }
 
-    private String load(Reader reader) {
-        return new BufferedReader(reader).lines().collect(joining("\n"));
+    private static String load(Reader reader) throws ScriptException {
+        final StringBuilder script = new StringBuilder();
+        final char[] buffer = new char[8192];
+        try {
+            int read;
+            while ((read = reader.read(buffer)) >= 0) {
+                script.append(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new ScriptException(e);
+        }
+        return script.toString();
     }
 }
@@ -104,6 +104,11 @@ public class JavaEngineFactory implements ScriptEngineFactory {
         if (key.equals("javax.script.language_version")) {
             return getLanguageVersion();
         }
+        if (key.equals("THREADING")) {
+            // compiled scripts only use locals, compilations don't share a file manager and the scripts Invocable
+            // calls are per thread
+            return "MULTITHREADED";
+        }
         return null;
     }
 
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Time spent in each phase of the evaluation of a script. The timings of the script being evaluated are bound to the
+ * evaluating thread so engines record their own phases, like the java compilation, without knowing the caller.
+ * Phases can nest, for example {@link #JAVAC} is part of {@link #COMPILE}.
+ */
+public final class PhaseTimings {
+    /**
+     * Engine factory lookup and engine creation.
+     */
+    public static final String LOOKUP = "lookup";
+
+    /**
+     * Reading of the script source.
+     */
+    public static final String LOAD = "load";
+
+    /**
+     * Compilation of the script by a {@link javax.script.Compilable} engine.
+     */
+    public static final String COMPILE = "compile";
+
+    /**
+     * Lookup of compiled classes in the persistent cache of the java engine.
+     */
+    public static final String CACHE = "cache";
+
+    /**
+     * Compilation of the generated class by javac.
+     */
+    public static final String JAVAC = "javac";
+
+    /**
+     * Definition and instantiation of the compiled script classes.
+     */
+    public static final String DEFINE = "define";
+
+    /**
+     * Evaluation of the script body.
+     */
+    public static final String EVAL = "eval";
+
+    /**
+     * Whole evaluation, from the engine lookup to the script result.
+     */
+    public static final String TOTAL = "total";
+
+    private static final ThreadLocal<PhaseTimings> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private PhaseTimings previous;
+
+    /**
+     * Makes these timings the ones recorded by the current thread, until {@link #unbind()}.
+     */
+    public void bind() {
+        previous = CURRENT.get();
+        CURRENT.set(this);
+    }
+
+    /**
+     * Restores the timings bound before {@link #bind()}.
+     */
+    public void unbind() {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+        previous = null;
+    }
+
+    /**
+     * Adds the time elapsed since {@code startNanos} to the phase of the timings bound to the current thread,
+     * does nothing when no timings are bound.
+     *
+     * @param phase the phase name
+     * @param startNanos the {@link System#nanoTime()} at the start of the phase
+     */
+    public static void record(String phase, long startNanos) {
+        PhaseTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.phases.merge(phase, System.nanoTime() - startNanos, Long::sum);
+        }
+    }
+
+    /**
+     * @return the nanoseconds spent in each recorded phase, in the order they completed first
+     */
+    public Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(phases);
+    }
+
+    /**
+     * @param phase the phase name
+     * @return the nanoseconds spent in the phase, zero if it was not recorded
+     */
+    public long get(String phase) {
+        Long nanos = phases.get(phase);
+        return nanos == null ? 0 : nanos;
+    }
+}
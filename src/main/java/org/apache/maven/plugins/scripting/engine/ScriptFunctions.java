@@ -0,0 +1,242 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import javax.script.ScriptException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The methods a java script declares, invoked through {@link javax.script.Invocable}. Method handles are resolved
+ * once per script class with the lookup of the script, so private methods and hidden classes are supported, and
+ * each invocation is a direct method handle call. Overloads are selected by arity, then by argument types.
+ * This class is used by the generated script classes, it is not meant to be used directly.
+ */
+public final class ScriptFunctions {
+    /**
+     * Methods of the generated script class which are not script functions.
+     */
+    private static final Set<String> TEMPLATE_METHODS = new HashSet<>(
+            Arrays.asList("eval", "getEngine", "close", "invokeFunction", "invokeMethod", "getInterface"));
+
+    private final MethodHandles.Lookup lookup;
+
+    private final Map<String, List<Function>> functions;
+
+    private final Map<Class<?>, Map<String, List<Function>>> methods = new ConcurrentHashMap<>();
+
+    private ScriptFunctions(final MethodHandles.Lookup lookup, final Map<String, List<Function>> functions) {
+        this.lookup = lookup;
+        this.functions = functions;
+    }
+
+    /**
+     * @param lookup the lookup of the script class, with private access
+     * @return the functions declared by the script class
+     */
+    public static ScriptFunctions of(final MethodHandles.Lookup lookup) {
+        final List<Method> declared = new ArrayList<>();
+        for (final Method method : lookup.lookupClass().getDeclaredMethods()) {
+            final String name = method.getName();
+            if (!method.isSynthetic() && !TEMPLATE_METHODS.contains(name) && !name.startsWith("$")) {
+                declared.add(method);
+            }
+        }
+        return new ScriptFunctions(lookup, index(lookup, declared));
+    }
+
+    /**
+     * @param target the script instance
+     * @param name the function name
+     * @param args the arguments
+     * @return the value the function returned, {@code null} for a void function
+     * @throws NoSuchMethodException if the script declares no function accepting the arguments
+     * @throws ScriptException if the function failed
+     */
+    public Object invokeFunction(final Object target, final String name, final Object... args)
+            throws NoSuchMethodException, ScriptException {
+        return invoke(select(functions, name, args), target, args);
+    }
+
+    /**
+     * @param target an object the script created, like one of its local classes
+     * @param name the method name
+     * @param args the arguments
+     * @return the value the method returned, {@code null} for a void method
+     * @throws NoSuchMethodException if the object has no method accepting the arguments the script can access
+     * @throws ScriptException if the method failed
+     */
+    public Object invokeMethod(final Object target, final String name, final Object... args)
+            throws NoSuchMethodException, ScriptException {
+        if (target == null) {
+            throw new IllegalArgumentException("Can't invoke " + name + " on a null object");
+        }
+        final Map<String, List<Function>> byName = methodsOf(target.getClass());
+        return invoke(select(byName, name, args), target, args);
+    }
+
+    /**
+     * @param target the object implementing the interface methods, the script or an object it created
+     * @param type the interface to implement
+     * @param functions {@code true} to dispatch to the functions of the script, {@code false} to the object methods
+     * @param <T> the interface type
+     * @return the interface implementation or {@code null} if a method of the interface has no implementation
+     */
+    public <T> T getInterface(final Object target, final Class<T> type, final boolean functions) {
+        if (type == null || !type.isInterface()) {
+            throw new IllegalArgumentException("Expected an interface, got " + type);
+        }
+        for (final Method method : type.getMethods()) {
+            if (Modifier.isAbstract(method.getModifiers()) && !implemented(target, method, functions)) {
+                return null;
+            }
+        }
+        final InvocationHandler handler = (proxy, method, args) -> {
+            final Object[] arguments = args == null ? new Object[0] : args;
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(target, arguments);
+            }
+            try {
+                return functions
+                        ? invokeFunction(target, method.getName(), arguments)
+                        : invokeMethod(target, method.getName(), arguments);
+            } catch (ScriptException e) {
+                throw e.getCause() != null ? e.getCause() : e;
+            }
+        };
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type}, handler));
+    }
+
+    private boolean implemented(final Object target, final Method method, final boolean functions) {
+        final Map<String, List<Function>> byName = functions ? this.functions : methodsOf(target.getClass());
+        for (final Function candidate : byName.getOrDefault(method.getName(), Collections.emptyList())) {
+            if (candidate.parameterTypes.length == method.getParameterCount()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the public instance methods of the type the script can access, indexed by name
+     */
+    private Map<String, List<Function>> methodsOf(final Class<?> type) {
+        return methods.computeIfAbsent(type, key -> {
+            final List<Method> candidates = new ArrayList<>();
+            for (final Method method : key.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && method.getDeclaringClass() != Object.class) {
+                    candidates.add(method);
+                }
+            }
+            return index(lookup, candidates);
+        });
+    }
+
+    private static Map<String, List<Function>> index(final MethodHandles.Lookup lookup, final List<Method> methods) {
+        final Map<String, List<Function>> byName = new HashMap<>();
+        for (final Method method : methods) {
+            try {
+                byName.computeIfAbsent(method.getName(), key -> new ArrayList<>())
+                        .add(new Function(method, lookup.unreflect(method)));
+            } catch (IllegalAccessException e) {
+                // not accessible from the script, like a method of a private JDK class
+            }
+        }
+        return byName;
+    }
+
+    private static Function select(final Map<String, List<Function>> byName, final String name, final Object[] args)
+            throws NoSuchMethodException {
+        final List<Function> candidates = byName.getOrDefault(name, Collections.emptyList());
+        for (final Function candidate : candidates) {
+            if (candidate.accepts(args)) {
+                return candidate;
+            }
+        }
+        throw new NoSuchMethodException(
+                name + " accepting " + args.length + " argument" + (args.length == 1 ? "" : "s"));
+    }
+
+    private static Object invoke(final Function function, final Object target, final Object[] args)
+            throws ScriptException {
+        try {
+            return function.handle.invokeExact(target, args);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            final ScriptException error = new ScriptException(
+                    e.getMessage() != null ? e.getMessage() : e.getClass().getName());
+            error.initCause(e);
+            throw error;
+        }
+    }
+
+    /**
+     * A method and its handle adapted to {@code (Object target, Object[] args)Object}.
+     */
+    private static final class Function {
+        private static final MethodType INVOKER = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+        private final Class<?>[] parameterTypes;
+
+        private final MethodHandle handle;
+
+        private Function(final Method method, final MethodHandle handle) {
+            this.parameterTypes = method.getParameterTypes();
+            MethodHandle adapted = Modifier.isStatic(method.getModifiers())
+                    ? MethodHandles.dropArguments(handle, 0, Object.class)
+                    : handle;
+            this.handle = adapted.asType(adapted.type().generic())
+                    .asSpreader(Object[].class, parameterTypes.length)
+                    .asType(INVOKER);
+        }
+
+        private boolean accepts(final Object[] args) {
+            if (args.length != parameterTypes.length) {
+                return false;
+            }
+            for (int i = 0; i < args.length; i++) {
+                final Class<?> type = parameterTypes[i];
+                if (args[i] == null ? type.isPrimitive() : !wrap(type).isInstance(args[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private static Class<?> wrap(final Class<?> type) {
+            return type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+
+/**
+ * The text of a script with the SHA-256 of its UTF-8 form, which identifies it in the caches.
+ * Scripts read from UTF-8 files or streams are decoded in a single pass which also digests the bytes, so the content
+ * is neither copied again nor hashed separately by each cache. Other charsets are digested on first use.
+ */
+public final class ScriptSource {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final String text;
+
+    private volatile String digest;
+
+    private ScriptSource(final String text, final String digest) {
+        this.text = text;
+        this.digest = digest;
+    }
+
+    /**
+     * @param text the script
+     * @return the source of an in memory script
+     */
+    public static ScriptSource of(final String text) {
+        return new ScriptSource(text, null);
+    }
+
+    /**
+     * @param file the script file
+     * @param charset the file encoding
+     * @return the source of the file
+     * @throws IOException if the file can't be read or is not encoded with the charset
+     */
+    public static ScriptSource read(final Path file, final Charset charset) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel, channel.size(), charset);
+        }
+    }
+
+    /**
+     * @param stream the script stream, not closed
+     * @param charset the stream encoding
+     * @return the source of the stream content
+     * @throws IOException if the stream can't be read or is not encoded with the charset
+     */
+    public static ScriptSource read(final InputStream stream, final Charset charset) throws IOException {
+        return read(Channels.newChannel(stream), BUFFER_SIZE, charset);
+    }
+
+    /**
+     * @return the script
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * @return the hexadecimal SHA-256 of the UTF-8 script
+     */
+    public String getDigest() {
+        String value = digest;
+        if (value == null) {
+            value = Digests.sha256Hex(text);
+            digest = value;
+        }
+        return value;
+    }
+
+    private static ScriptSource read(final ReadableByteChannel channel, final long size, final Charset charset)
+            throws IOException {
+        // decoding errors are reported so the UTF-8 bytes digest is always the digest of the text
+        final CharsetDecoder decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPORT)
+                .onUnmappableCharacter(CodingErrorAction.REPORT);
+        final MessageDigest bytesDigest = StandardCharsets.UTF_8.equals(charset) ? Digests.sha256() : null;
+        final ByteBuffer bytes = ByteBuffer.allocate(BUFFER_SIZE);
+        final CharBuffer chars = CharBuffer.allocate(BUFFER_SIZE);
+        // one char per byte is exact for ASCII and an upper bound for UTF-8
+        final StringBuilder text = new StringBuilder((int) Math.min(size, Integer.MAX_VALUE - 8));
+
+        boolean eof = false;
+        while (!eof) {
+            eof = channel.read(bytes) < 0;
+            bytes.flip();
+            CoderResult result;
+            do {
+                final int from = bytes.position();
+                result = decoder.decode(bytes, chars, eof);
+                if (bytesDigest != null) {
+                    bytesDigest.update(bytes.array(), from, bytes.position() - from);
+                }
+                if (result.isError()) {
+                    result.throwException();
+                }
+                drain(chars, text);
+            } while (result.isOverflow());
+            bytes.compact();
+        }
+        while (decoder.flush(chars).isOverflow()) {
+            drain(chars, text);
+        }
+        drain(chars, text);
+
+        return new ScriptSource(text.toString(), bytesDigest == null ? null : Digests.toHex(bytesDigest.digest()));
+    }
+
+    private static void drain(final CharBuffer chars, final StringBuilder text) {
+        chars.flip();
+        text.append(chars);
+        chars.clear();
+    }
+}
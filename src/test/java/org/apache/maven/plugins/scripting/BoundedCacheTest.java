@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class BoundedCacheTest {
+    @Test
+    void evictsLeastRecentlyUsed() {
+        BoundedCache<String, Object> cache = new BoundedCache<>(2);
+        Object first = new Object();
+        assertNull(cache.putIfAbsent("first", first));
+        assertNull(cache.putIfAbsent("second", new Object()));
+        assertSame(first, cache.get("first"));
+
+        assertNull(cache.putIfAbsent("third", new Object()));
+        assertSame(first, cache.get("first"));
+        assertNull(cache.get("second"));
+    }
+
+    @Test
+    void shrinks() {
+        BoundedCache<String, Object> cache = new BoundedCache<>(2);
+        Object first = new Object();
+        Object second = new Object();
+        cache.putIfAbsent("first", first);
+        cache.putIfAbsent("second", second);
+
+        cache.setMaxSize(1);
+        assertNull(cache.get("first"));
+        assertSame(second, cache.get("second"));
+    }
+
+    @Test
+    void computesOnce() {
+        BoundedCache<String, Object> cache = new BoundedCache<>(2);
+        Object value = cache.computeIfAbsent("key", key -> new Object());
+        assertSame(value, cache.computeIfAbsent("key", key -> new Object()));
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.AbstractScriptEngine;
+import javax.script.Bindings;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptContext;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineFactory;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import java.io.Reader;
+import java.util.Collections;
+
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.apache.maven.plugins.scripting.engine.JavaEngineFactory;
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompiledScriptCacheTest {
+    private final Log log = new SystemStreamLog();
+
+    @Test
+    void reuse() throws ScriptException {
+        CompiledScriptCache cache = new CompiledScriptCache(2, false);
+        ScriptEngine first = new JavaEngineFactory().getScriptEngine();
+        ScriptEngine second = new JavaEngineFactory().getScriptEngine();
+
+        CompiledScript compiled = cache.compile(first, ScriptSource.of("int i = 1;"), log);
+        assertSame(compiled, cache.compile(second, ScriptSource.of("int i = 1;"), log));
+        assertNotSame(compiled, cache.compile(second, ScriptSource.of("int i = 2;"), log));
+    }
+
+    @Test
+    void evictionKeepsScriptsOpen() throws ScriptException {
+        CompiledScriptCache cache = new CompiledScriptCache(1, false);
+        ClosableScriptEngine engine = new ClosableScriptEngine();
+
+        ClosableScript evicted = (ClosableScript) cache.compile(engine, ScriptSource.of("first"), log);
+        assertFalse(evicted.closed);
+
+        // another module can still be evaluating the evicted script, the garbage collector reclaims it
+        ClosableScript kept = (ClosableScript) cache.compile(engine, ScriptSource.of("second"), log);
+        assertFalse(evicted.closed);
+        assertFalse(kept.closed);
+        assertNotSame(evicted, cache.compile(engine, ScriptSource.of("first"), log));
+    }
+
+    @Test
+    void closesDuplicatesNeverHandedOut() throws ScriptException {
+        CompiledScriptCache cache = new CompiledScriptCache(2, false);
+        ClosableScriptEngine engine = new ClosableScriptEngine();
+        ClosableScript cached = (ClosableScript) cache.compile(engine, ScriptSource.of("first"), log);
+
+        ClosableScript duplicate = new ClosableScript(engine);
+        cache.putAll(engine, Collections.singletonMap(ScriptSource.of("first").getDigest(), duplicate), log);
+        assertTrue(duplicate.closed);
+        assertFalse(cached.closed);
+        assertSame(cached, cache.compile(engine, ScriptSource.of("first"), log));
+    }
+
+    private static class ClosableScriptEngine extends AbstractScriptEngine implements Compilable {
+        @Override
+        public CompiledScript compile(String script) {
+            return new ClosableScript(this);
+        }
+
+        @Override
+        public CompiledScript compile(Reader script) {
+            return new ClosableScript(this);
+        }
+
+        @Override
+        public Object eval(String script, ScriptContext context) {
+            return null;
+        }
+
+        @Override
+        public Object eval(Reader reader, ScriptContext context) {
+            return null;
+        }
+
+        @Override
+        public Bindings createBindings() {
+            return new SimpleBindings();
+        }
+
+        @Override
+        public ScriptEngineFactory getFactory() {
+            return new JavaEngineFactory();
+        }
+    }
+
+    private static class ClosableScript extends CompiledScript implements AutoCloseable {
+        private final ScriptEngine engine;
+
+        private boolean closed;
+
+        ClosableScript(ScriptEngine engine) {
+            this.engine = engine;
+        }
+
+        @Override
+        public Object eval(ScriptContext context) {
+            return null;
+        }
+
+        @Override
+        public ScriptEngine getEngine() {
+            return engine;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LazyBindingsTest {
+    @Test
+    void computedOnceOnFirstRead() {
+        AtomicInteger computations = new AtomicInteger();
+        LazyBindings bindings = new LazyBindings();
+        bindings.put("cheap", "value");
+        bindings.putLazy("expensive", computations::incrementAndGet);
+
+        assertTrue(bindings.containsKey("expensive"));
+        assertEquals("value", bindings.get("cheap"));
+        assertEquals(0, computations.get());
+
+        LazyBindings copy = bindings.copy();
+        assertEquals(1, copy.get("expensive"));
+        assertEquals(1, bindings.get("expensive"));
+        assertEquals(1, computations.get());
+    }
+
+    @Test
+    void overwriteDoesNotCompute() {
+        AtomicInteger computations = new AtomicInteger();
+        LazyBindings bindings = new LazyBindings();
+        bindings.putLazy("expensive", computations::incrementAndGet);
+
+        assertNull(bindings.put("expensive", "replaced"));
+        assertEquals("replaced", bindings.get("expensive"));
+        assertEquals(0, computations.get());
+    }
+
+    @Test
+    void entriesExposeValues() {
+        LazyBindings bindings = new LazyBindings();
+        bindings.put("cheap", "value");
+        bindings.putLazy("lazy", () -> "computed");
+
+        HashMap<String, Object> expected = new HashMap<>();
+        expected.put("cheap", "value");
+        expected.put("lazy", "computed");
+        assertEquals(expected, new HashMap<>(bindings));
+    }
+}
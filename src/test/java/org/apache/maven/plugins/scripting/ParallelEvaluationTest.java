@@ -0,0 +1,82 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.Bindings;
+import javax.script.SimpleBindings;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelEvaluationTest {
+    private final ScriptEngines engines = new ScriptEngines(new SystemStreamLog(), null, null, true);
+
+    @Test
+    void isolatedBindings() throws Exception {
+        Bindings bindings = new SimpleBindings();
+        bindings.put("shared", "value");
+
+        List<Object> results = new ParallelEvaluation(2)
+                .eval(
+                        Arrays.asList(
+                                new StringScriptEvaluator("java", "$bindings.put(\"shared\", \"first\");"),
+                                new StringScriptEvaluator("java", "$bindings.put(\"shared\", \"second\");")),
+                        bindings,
+                        engines,
+                        null);
+
+        assertEquals(Arrays.asList(null, null), results);
+        assertEquals("value", bindings.get("shared"));
+    }
+
+    @Test
+    void aggregatedFailures() {
+        List<AbstractScriptEvaluator> evaluators = Arrays.asList(
+                new StringScriptEvaluator("java", "if (true) throw new IllegalStateException(\"1\");"),
+                new StringScriptEvaluator("java", "int ok = 1;"),
+                new StringScriptEvaluator("java", "if (true) throw new IllegalStateException(\"2\");"));
+
+        MojoExecutionException error = assertThrows(
+                MojoExecutionException.class,
+                () -> new ParallelEvaluation(2).eval(evaluators, new SimpleBindings(), engines, null));
+
+        assertEquals(2, error.getSuppressed().length);
+    }
+
+    @Test
+    void missingEngineFailsTheBuild() {
+        List<AbstractScriptEvaluator> evaluators = Arrays.asList(
+                new StringScriptEvaluator("missing", "1"),
+                new StringScriptEvaluator("java", "if (true) throw new IllegalStateException(\"1\");"));
+
+        MojoFailureException error = assertThrows(
+                MojoFailureException.class,
+                () -> new ParallelEvaluation(2).eval(evaluators, new SimpleBindings(), engines, null));
+
+        assertEquals(2, error.getSuppressed().length);
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingEvaluationsTest {
+    @Test
+    void awaitCompletion() throws Exception {
+        PendingEvaluations pending = new PendingEvaluations();
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean done = new AtomicBoolean();
+        pending.start("module", "report", () -> {
+            started.countDown();
+            done.set(true);
+        });
+        pending.start("other", "index", () -> {});
+        started.await();
+
+        assertEquals(Collections.singletonList("report"), pending.await("module"));
+        assertTrue(done.get());
+        assertEquals(Collections.emptyList(), pending.await("module"));
+        assertEquals(Collections.singletonList("index"), pending.await("other"));
+    }
+
+    @Test
+    void failuresAtAwait() {
+        PendingEvaluations pending = new PendingEvaluations();
+        MojoFailureException failure = new MojoFailureException("failed");
+        pending.start("module", "first", () -> {
+            throw failure;
+        });
+        assertSame(failure, assertThrows(MojoFailureException.class, () -> pending.await("module")));
+
+        pending.start("module", "first", () -> {
+            throw new MojoExecutionException("first");
+        });
+        pending.start("module", "second", () -> {
+            throw new IllegalStateException("second");
+        });
+        MojoExecutionException error = assertThrows(MojoExecutionException.class, () -> pending.await("module"));
+        assertEquals(2, error.getSuppressed().length);
+        assertEquals(
+                Arrays.asList("first", "second"),
+                Arrays.asList(error.getSuppressed()[0].getMessage(), error.getSuppressed()[1].getMessage()));
+    }
+
+    @Test
+    void failuresWithoutAwait() throws Exception {
+        PendingEvaluations pending = new PendingEvaluations();
+        pending.start("joined", "report", () -> {});
+        pending.start("module", "first", () -> {
+            throw new MojoFailureException("failed");
+        });
+        pending.await("joined");
+
+        MojoFailureException failure = assertThrows(MojoFailureException.class, pending::awaitAll);
+        assertEquals("Background evaluation of the scripts of module failed: failed", failure.getMessage());
+        pending.awaitAll();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunOnceTest {
+    @Test
+    void first() throws Exception {
+        RunOnce once = new RunOnce();
+        assertTrue(once.first("before"));
+        assertFalse(once.first("before"));
+        assertTrue(once.first("other"));
+
+        once.firstDone("before", null);
+        once.awaitFirst("before");
+    }
+
+    @Test
+    void failureOfTheFirst() {
+        RunOnce once = new RunOnce();
+        assertTrue(once.first("before"));
+        MojoFailureException failure = new MojoFailureException("failed");
+        once.firstDone("before", failure);
+
+        MojoFailureException error = assertThrows(MojoFailureException.class, () -> once.awaitFirst("before"));
+        assertSame(failure, error.getCause());
+    }
+
+    @Test
+    void lastOfConcurrentModules() throws Exception {
+        RunOnce once = new RunOnce();
+        List<String> all = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            all.add("module" + i);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> modules = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                String module = "module" + i;
+                modules.add(executor.submit(() -> once.last("key", "after", module, all)));
+            }
+            int evaluated = 0;
+            for (Future<Boolean> module : modules) {
+                evaluated += module.get() ? 1 : 0;
+            }
+            assertEquals(1, evaluated);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void lastOfTheModulesStillExpected() {
+        RunOnce once = new RunOnce();
+        assertFalse(once.last("key", "after", "a", Arrays.asList("a", "b", "c")));
+        // c failed, it won't reach the execution
+        assertTrue(once.last("key", "after", "b", Arrays.asList("a", "b")));
+        assertFalse(once.last("key", "after", "c", Arrays.asList("a", "b", "c")));
+    }
+
+    @Test
+    void warnsWhenTheLastFailed() {
+        RunOnce once = new RunOnce();
+        assertFalse(once.last("key", "after", "a", Arrays.asList("a", "b")));
+        List<CharSequence> warnings = new ArrayList<>();
+        once.warnNotEvaluated(new SystemStreamLog() {
+            @Override
+            public void warn(CharSequence content) {
+                warnings.add(content);
+            }
+        });
+        assertEquals(
+                Collections.singletonList("The scripts of after were not evaluated, b did not reach the execution"),
+                warnings);
+    }
+}
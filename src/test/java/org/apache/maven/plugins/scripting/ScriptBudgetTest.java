@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugin.logging.SystemStreamLog;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class ScriptBudgetTest {
+    private final ScriptEngines engines = new ScriptEngines(new SystemStreamLog(), null, null, false);
+
+    @Test
+    void interruptsOnTimeout() {
+        AbstractScriptEvaluator evaluator = new StringScriptEvaluator(
+                "java",
+                "try { Thread.sleep(60_000); } catch (InterruptedException e) { throw new IllegalStateException(e); }");
+        evaluator.setBudget(new ScriptBudget(200, 0, 0, true));
+
+        ScriptException error =
+                assertThrows(ScriptException.class, () -> evaluator.eval(new SimpleBindings(), engines, null));
+
+        assertTrue(error.getMessage().contains("wall-clock budget of 200 ms"), error.getMessage());
+        assertFalse(Thread.currentThread().isInterrupted());
+        assertTrue(evaluator.getUsage().getWallNanos() < 60_000_000_000L);
+    }
+
+    @Test
+    void exceededBudget() throws Exception {
+        AbstractScriptEvaluator evaluator =
+                new StringScriptEvaluator("java", "byte[][] data = new byte[16][]; data[0] = new byte[4 << 20];");
+        evaluator.eval(new SimpleBindings(), engines, null);
+        ScriptBudget.Usage usage = evaluator.getUsage();
+
+        assumeTrue(usage.getAllocatedBytes() >= 0, "the JVM does not measure thread allocations");
+
+        new ScriptBudget(0, 0, 1, false).check("allocating", usage, new SystemStreamLog());
+        assertThrows(
+                MojoFailureException.class,
+                () -> new ScriptBudget(0, 0, 1, true).check("allocating", usage, new SystemStreamLog()));
+        new ScriptBudget(0, 0, 1L << 40, true).check("allocating", usage, new SystemStreamLog());
+    }
+}
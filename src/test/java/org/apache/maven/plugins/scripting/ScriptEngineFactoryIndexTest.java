@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.apache.maven.plugins.scripting.engine.JavaEngineFactory;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ScriptEngineFactoryIndexTest {
+    @Test
+    void lookup() {
+        ScriptEngineFactoryIndex index = ScriptEngineFactoryIndex.of(getClass().getClassLoader());
+        assertInstanceOf(JavaEngineFactory.class, index.getByName("Maven-Scripting-Java-Engine"));
+        assertSame(index.getByName("java"), index.getByExtension("java"));
+        assertSame(index.getByName("java"), index.getByMimeType("application/java"));
+        assertNull(index.getByExtension("unknown"));
+    }
+
+    @Test
+    void cachedPerClassLoader() {
+        assertSame(
+                ScriptEngineFactoryIndex.of(getClass().getClassLoader()),
+                ScriptEngineFactoryIndex.of(getClass().getClassLoader()));
+    }
+
+    @Test
+    void forgetsClosedLoaders() throws IOException {
+        try (URLClassLoader loader = new URLClassLoader(new URL[0], getClass().getClassLoader())) {
+            ScriptEngineFactoryIndex index = ScriptEngineFactoryIndex.of(loader);
+            assertSame(index, ScriptEngineFactoryIndex.of(loader));
+
+            ScriptEngineFactoryIndex.forget(loader);
+            assertNotSame(index, ScriptEngineFactoryIndex.of(loader));
+        }
+    }
+}
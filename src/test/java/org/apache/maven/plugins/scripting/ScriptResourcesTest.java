@@ -0,0 +1,73 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import javax.script.ScriptException;
+
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.maven.plugins.scripting.engine.ScriptSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ScriptResourcesTest {
+    @Test
+    void readOnce(@TempDir Path dir) throws Exception {
+        Path jar = dir.resolve("scripts.jar");
+        try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new JarEntry("scripts/hello.java"));
+            out.write("return \"hello\";".getBytes(StandardCharsets.UTF_8));
+            out.closeEntry();
+        }
+
+        ScriptResources resources = new ScriptResources();
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {jar.toUri().toURL()}, null)) {
+            ScriptSource source = resources.get(loader, "scripts/hello.java", StandardCharsets.UTF_8);
+            assertEquals("return \"hello\";", source.getText());
+
+            // the content is kept, overwriting the jar does not change it
+            try (OutputStream out = Files.newOutputStream(jar)) {
+                out.write(0);
+            }
+            assertSame(source, resources.get(loader, "scripts/hello.java", StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void notFound() throws Exception {
+        ScriptResources resources = new ScriptResources();
+        try (URLClassLoader loader = new URLClassLoader(new URL[0], null)) {
+            ScriptException e = assertThrows(
+                    ScriptException.class, () -> resources.get(loader, "missing.groovy", StandardCharsets.UTF_8));
+            assertTrue(e.getMessage().contains("'missing.groovy' not found"), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.maven.execution.AbstractExecutionListener;
+import org.apache.maven.execution.DefaultMavenExecutionRequest;
+import org.apache.maven.execution.DefaultMavenExecutionResult;
+import org.apache.maven.execution.ExecutionEvent;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.project.MavenProject;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.junit.jupiter.api.Test;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class SessionEndTest {
+    @Test
+    @SuppressWarnings("deprecation")
+    void runsActionsByStageBeforeTheListenerOfTheRequest() {
+        List<String> calls = new ArrayList<>();
+        DefaultMavenExecutionRequest request = new DefaultMavenExecutionRequest();
+        request.setExecutionListener(new AbstractExecutionListener() {
+            @Override
+            public void sessionEnded(ExecutionEvent event) {
+                calls.add("listener");
+            }
+        });
+        MavenSession session = new MavenSession(
+                null, new DefaultRepositorySystemSession(), request, new DefaultMavenExecutionResult());
+
+        SessionEnd.register(session, SessionEnd.Stage.CLOSE, () -> calls.add("close"));
+        SessionEnd.register(session, SessionEnd.Stage.AWAIT, () -> calls.add("first"));
+        MojoFailureException failure = new MojoFailureException("failed");
+        SessionEnd.register(session, SessionEnd.Stage.AWAIT, () -> {
+            calls.add("second");
+            throw failure;
+        });
+
+        ExecutionEvent event = new SessionEvent(session);
+        request.getExecutionListener().sessionEnded(event);
+        request.getExecutionListener().sessionEnded(event);
+        assertEquals(asList("first", "second", "close", "listener"), calls);
+        assertEquals(1, session.getResult().getExceptions().size());
+        assertSame(failure, session.getResult().getExceptions().get(0));
+    }
+
+    private static final class SessionEvent implements ExecutionEvent {
+        private final MavenSession session;
+
+        SessionEvent(MavenSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public Type getType() {
+            return Type.SessionEnded;
+        }
+
+        @Override
+        public MavenSession getSession() {
+            return session;
+        }
+
+        @Override
+        public MavenProject getProject() {
+            return null;
+        }
+
+        @Override
+        public MojoExecution getMojoExecution() {
+            return null;
+        }
+
+        @Override
+        public Exception getException() {
+            return null;
+        }
+    }
+}
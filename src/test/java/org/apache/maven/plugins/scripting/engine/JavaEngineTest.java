@@ -37,12 +37,39 @@ package org.apache.maven.plugins.scripting.engine;
  * under the License.
  */
 
+import javax.script.CompiledScript;
+import javax.script.Invocable;
+import javax.script.ScriptContext;
 import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import javax.script.SimpleBindings;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntUnaryOperator;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 class JavaEngineTest {
     @Test
@@ -54,4 +81,264 @@ class JavaEngineTest {
         assertEquals("yes", System.getProperty("JavaEngineTest.run"));
         System.clearProperty("JavaEngineTest.run");
     }
+
+    @Test
+    void cache(@TempDir Path cache) throws Exception {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setCacheDirectory(cache);
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+        final String script = "System.setProperty(\"JavaEngineTest.cache\",\"yes\");";
+
+        final CompiledScript first = engine.compile(script);
+        assertEquals(1L, countEntries(cache));
+        ((AutoCloseable) first).close();
+
+        // a cache hit must neither recompile nor republish the entry
+        final long lastModified = Files.getLastModifiedTime(cache).toMillis();
+        final CompiledScript second = engine.compile(script);
+        try {
+            assertEquals(1L, countEntries(cache));
+            assertEquals(lastModified, Files.getLastModifiedTime(cache).toMillis());
+            assertNull(System.getProperty("JavaEngineTest.cache"));
+            second.eval();
+            assertEquals("yes", System.getProperty("JavaEngineTest.cache"));
+        } finally {
+            ((AutoCloseable) second).close();
+            System.clearProperty("JavaEngineTest.cache");
+        }
+
+        final CompiledScript other = engine.compile("System.getProperty(\"JavaEngineTest.cache\");");
+        ((AutoCloseable) other).close();
+        assertEquals(2L, countEntries(cache));
+        assertNotEquals(second.getClass(), other.getClass());
+    }
+
+    @Test
+    void cacheKeyedByClasspathContent(@TempDir Path cache, @TempDir Path classes) throws Exception {
+        final List<File> classpath = new ArrayList<>();
+        for (final String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(entry));
+        }
+        classpath.add(classes.toFile());
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setCacheDirectory(cache);
+        engine.setClasspath(classpath);
+        final String script = "int unused = 1;";
+
+        ((AutoCloseable) engine.compile(script)).close();
+        ((AutoCloseable) engine.compile(script)).close();
+        assertEquals(1L, countEntries(cache));
+
+        // a directory rebuilt at the same path must not reuse the classes compiled against its previous content
+        Files.write(classes.resolve("Added.class"), new byte[0]);
+        ((AutoCloseable) engine.compile(script)).close();
+        assertEquals(2L, countEntries(cache));
+    }
+
+    @Test
+    void concurrentCompilations() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Object>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                final int value = i;
+                results.add(executor.submit(() -> {
+                    final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+                    engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+                    final CompiledScript script = engine.compile("return " + value + " * 2;");
+                    try {
+                        return script.eval();
+                    } finally {
+                        ((AutoCloseable) script).close();
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                assertEquals(i * 2, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void batch(@TempDir Path cache) throws Exception {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setCacheDirectory(cache);
+        final SimpleBindings bindings = new SimpleBindings();
+        engine.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
+        final String first = "$bindings.put(\"first\", 1);";
+        final String second = "$bindings.put(\"second\", new Object() { int get() { return 2; } }.get());";
+
+        final Map<String, CompiledScript> compiled = engine.compile(Arrays.asList(first, second, first));
+        assertEquals(2, compiled.size());
+        assertEquals(2L, countEntries(cache));
+        for (final CompiledScript script : compiled.values()) {
+            try {
+                script.eval();
+            } finally {
+                ((AutoCloseable) script).close();
+            }
+        }
+        assertEquals(1, bindings.get("first"));
+        assertEquals(2, bindings.get("second"));
+    }
+
+    @Test
+    void definition() throws Exception {
+        assumeTrue(HiddenClassDefiner.getInstance() != null, "hidden classes need JDK 15+");
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+
+        // hidden class names are not valid binary names
+        final CompiledScript simple = engine.compile("int i = 1;");
+        assertTrue(simple.getClass().getName().contains("/"), simple.getClass().getName());
+        assertSame(JavaEngine.class.getClassLoader(), simple.getClass().getClassLoader());
+        simple.eval();
+        ((AutoCloseable) simple).close();
+
+        final CompiledScript nested = engine.compile("new Object() {}.toString();");
+        assertInstanceOf(ByteArrayClassLoader.class, nested.getClass().getClassLoader());
+        nested.eval();
+        ((AutoCloseable) nested).close();
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader oldLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(new ClassLoader(JavaEngine.class.getClassLoader()) {});
+        try {
+            final CompiledScript child = engine.compile("int i = 2;");
+            assertInstanceOf(ByteArrayClassLoader.class, child.getClass().getClassLoader());
+            ((AutoCloseable) child).close();
+        } finally {
+            thread.setContextClassLoader(oldLoader);
+        }
+    }
+
+    @Test
+    void precompiled() throws Exception {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        final SimpleBindings bindings = new SimpleBindings();
+        engine.setBindings(bindings, ScriptContext.GLOBAL_SCOPE);
+        final String className = "org.example.scripts.hello";
+
+        final Map<String, byte[]> classes = engine.compileClasses(
+                Collections.singletonMap(className, ScriptSource.of("$bindings.put(\"hello\", \"world\");")), null);
+        assertEquals(Collections.singleton(className), classes.keySet());
+
+        final Thread thread = Thread.currentThread();
+        final ClassLoader oldLoader = thread.getContextClassLoader();
+        try (ByteArrayClassLoader loader = new ByteArrayClassLoader(JavaEngine.class.getClassLoader(), classes)) {
+            thread.setContextClassLoader(loader);
+            engine.loadCompiledScript(className).eval();
+        } finally {
+            thread.setContextClassLoader(oldLoader);
+        }
+        assertEquals("world", bindings.get("hello"));
+    }
+
+    @Test
+    void invocable() throws Exception {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+
+        final Object result = engine.eval("import java.util.function.IntUnaryOperator;\n"
+                + "\n"
+                + "int twice(int value) {\n"
+                + "    return 2 * value;\n"
+                + "}\n"
+                + "\n"
+                + "static String greet(String name) { return \"hello \" + name; } // a comment {\n"
+                + "\n"
+                + "int applyAsInt(int operand) {\n"
+                + "    if (operand < 0) { throw new IllegalArgumentException(\"}\"); }\n"
+                + "    return operand + 1;\n"
+                + "}\n"
+                + "\n"
+                + "if (twice(1) != 2) {\n"
+                + "    throw new IllegalStateException();\n"
+                + "}\n"
+                + "return new Object() { public String hi(String name) { return \"hi \" + name; } };");
+
+        final Invocable invocable = engine;
+        assertEquals(8, invocable.invokeFunction("twice", 4));
+        assertEquals("hello maven", invocable.invokeFunction("greet", "maven"));
+        assertEquals("hi maven", invocable.invokeMethod(result, "hi", "maven"));
+        assertEquals(3, invocable.getInterface(IntUnaryOperator.class).applyAsInt(2));
+        assertNull(invocable.getInterface(Runnable.class));
+        assertThrows(NoSuchMethodException.class, () -> invocable.invokeFunction("twice", "4"));
+        assertThrows(NoSuchMethodException.class, () -> invocable.invokeFunction("missing"));
+        assertThrows(ScriptException.class, () -> invocable.invokeFunction("applyAsInt", -1));
+    }
+
+    @Test
+    void invocablePerThread() throws Exception {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+        engine.eval("int value() { return 1; }\nreturn null;");
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            final Future<Object> other = executor.submit(() -> {
+                assertThrows(IllegalStateException.class, () -> engine.invokeFunction("value"));
+                engine.eval("int value() { return 2; }\nreturn null;");
+                return engine.invokeFunction("value");
+            });
+            assertEquals(2, other.get());
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, engine.invokeFunction("value"));
+
+        engine.eval("int value() { return 3; }\nreturn null;");
+        assertEquals(3, engine.invokeFunction("value"));
+    }
+
+    @Test
+    void returnedValue() throws Exception {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+        engine.setBindings(new SimpleBindings(), ScriptContext.GLOBAL_SCOPE);
+
+        final CompiledScript script =
+                engine.compile("private int one() { return 1; }\nreturn $bindings.size() + one();");
+        try {
+            assertEquals(1, script.eval());
+            // compiled scripts are invocable too, whether defined as hidden classes or not
+            assertEquals(1, ((Invocable) script).invokeFunction("one"));
+            assertNull(engine.eval("int unused = 1;"));
+        } finally {
+            ((AutoCloseable) script).close();
+        }
+    }
+
+    @Test
+    void diagnostics() {
+        final JavaEngine engine = new JavaEngine(new JavaEngineFactory());
+
+        final ScriptException error = assertThrows(
+                ScriptException.class,
+                () -> engine.compile("import java.util.List;\n"
+                        + "\n"
+                        + "int twice(int value) {\n"
+                        + "    return value * \"2\";\n"
+                        + "}\n"
+                        + "List<String> names = null;\n"
+                        + "\tint count = names;\n"));
+        final String message = error.getMessage();
+        assertTrue(
+                message.contains("script line 4: error: ")
+                        && message.contains("\n        return value * \"2\";\n                     ^"),
+                message);
+        assertTrue(
+                message.contains("script line 7: error: ")
+                        && message.contains("\n    \tint count = names;\n    \t            ^"),
+                message);
+        // only the failing lines are rendered, not the whole generated class
+        assertFalse(message.contains("CompiledScript {"), message);
+    }
+
+    private static long countEntries(final Path cache) throws Exception {
+        try (Stream<Path> entries = Files.list(cache)) {
+            return entries.count();
+        }
+    }
 }
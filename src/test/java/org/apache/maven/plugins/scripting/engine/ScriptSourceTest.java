@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.maven.plugins.scripting.engine;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ScriptSourceTest {
+    private static final String SCRIPT = "String s = \"d\u00e9j\u00e0 vu \u2713\";\n";
+
+    @Test
+    void digestDoesNotDependOnEncoding(@TempDir Path dir) throws Exception {
+        Path utf8 = Files.write(dir.resolve("utf8.java"), SCRIPT.getBytes(StandardCharsets.UTF_8));
+        Path utf16 = Files.write(dir.resolve("utf16.java"), SCRIPT.getBytes(StandardCharsets.UTF_16));
+
+        ScriptSource expected = ScriptSource.of(SCRIPT);
+        ScriptSource fromUtf8 = ScriptSource.read(utf8, StandardCharsets.UTF_8);
+        ScriptSource fromUtf16 = ScriptSource.read(utf16, StandardCharsets.UTF_16);
+        ScriptSource fromStream =
+                ScriptSource.read(new ByteArrayInputStream(Files.readAllBytes(utf8)), StandardCharsets.UTF_8);
+
+        assertEquals(SCRIPT, fromUtf8.getText());
+        assertEquals(SCRIPT, fromUtf16.getText());
+        assertEquals(SCRIPT, fromStream.getText());
+        assertEquals(expected.getDigest(), fromUtf8.getDigest());
+        assertEquals(expected.getDigest(), fromUtf16.getDigest());
+        assertEquals(expected.getDigest(), fromStream.getDigest());
+    }
+
+    @Test
+    void malformedInput(@TempDir Path dir) throws Exception {
+        Path latin1 = Files.write(
+                dir.resolve("latin1.java"), SCRIPT.replace("\u2713", "").getBytes(StandardCharsets.ISO_8859_1));
+
+        assertThrows(CharacterCodingException.class, () -> ScriptSource.read(latin1, StandardCharsets.UTF_8));
+    }
+}